@@ -0,0 +1,53 @@
+package main.bench;
+
+import main.board.Board;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the fixed puzzle corpora bundled under {@code /puzzles} so that every benchmark run sees the same inputs.
+ * <ul>
+ * <li>easy: unique puzzles that singles alone solve without guessing</li>
+ * <li>hard: unique minimal puzzles that still need guessing after singles</li>
+ * <li>minimal17: known 17 clue puzzles, the fewest clues a unique puzzle can have</li>
+ * <li>pathological: puzzles known to defeat naive backtracking or human techniques</li>
+ * </ul>
+ *
+ * @author Matthew Lillie
+ */
+public final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Loads a corpus by name.
+     *
+     * @param name The name of the corpus
+     * @return The puzzles of the corpus in file order
+     * @throws IOException If the corpus does not exist or cannot be read
+     */
+    public static Board[] load(String name) throws IOException {
+        InputStream stream = Corpus.class.getResourceAsStream("/puzzles/" + name + ".txt");
+        if (stream == null) {
+            throw new IOException("Unknown corpus: " + name);
+        }
+        List<Board> puzzles = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    puzzles.add(Board.parse(line));
+                }
+            }
+        }
+        return puzzles.toArray(new Board[0]);
+    }
+}
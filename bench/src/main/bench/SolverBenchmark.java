@@ -0,0 +1,77 @@
+package main.bench;
+
+import main.board.Board;
+import main.solvers.Solver;
+import main.solvers.Solvers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every registered solver on every bundled corpus. Each invocation solves the next puzzle of the corpus on
+ * a fresh copy, so throughput is in puzzles per time unit and sample time gives the per-puzzle percentiles.
+ * <p>
+ * Running {@link #main(String[])} benchmarks every solver in {@link Solvers} with the GC profiler attached to report
+ * the allocation rate. Parameters can also be narrowed from the JMH command line, e.g. {@code -p solver=dlx}.
+ *
+ * @author Matthew Lillie
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SolverBenchmark {
+
+    @Param({"easy", "hard", "minimal17", "pathological"})
+    public String corpus;
+
+    @Param({"sequential", "parallel", "forkjoin", "dlx", "iterative", "lanes", "portfolio", "restarts",
+            "parallel-restarts"})
+    public String solver;
+
+    private final Board board = new Board();
+    private Solver instance;
+    private Board[] puzzles;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        instance = Solvers.create(solver);
+        puzzles = Corpus.load(corpus);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        board.copyFrom(puzzles[next]);
+        next = (next + 1) % puzzles.length;
+        return instance.solve(board);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SolverBenchmark.class.getSimpleName())
+                .param("solver", Solvers.names().toArray(new String[0]))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
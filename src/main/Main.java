@@ -1,11 +1,31 @@
 package main;
 
+import main.batch.BatchMain;
+import main.rating.RateMain;
+import main.server.ServerMain;
+
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class Main {
 
-    public static void main(String[] args) throws ClassNotFoundException, UnsupportedLookAndFeelException, InstantiationException, IllegalAccessException {
+    public static void main(String[] args) throws ClassNotFoundException, UnsupportedLookAndFeelException, InstantiationException, IllegalAccessException, IOException {
+        // Batch mode never touches Swing so it can run on machines without a display
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--rate")) {
+            RateMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            ServerMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
 
@@ -1,5 +1,9 @@
 package main;
 
+import main.board.Board;
+import main.generator.Difficulty;
+import main.generator.PuzzleGenerator;
+
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
@@ -7,22 +11,28 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Represents a Sudoku puzzle that is being drawn onto a JPanel, includes a method to be able to generate a random puzzle as well as solving the
- * puzzle using backtracking.
+ * puzzle using backtracking. The cells themselves are kept in a headless {@link Board}; this panel only adapts it for display and editing.
  *
  * @author Matthew Lillie
  */
 public class Puzzle extends JPanel {
 
     // Constants and variables
-    public static final int NUMBER_OF_SQUARES = 9;
-    public static final int SQUARE_WIDTH = 3;
-    public static final int SQUARE_HEIGHT = 3;
+    public static final int NUMBER_OF_SQUARES = Board.SIZE;
+    public static final int SQUARE_WIDTH = Board.BOX_WIDTH;
+    public static final int SQUARE_HEIGHT = Board.BOX_HEIGHT;
+    private static final Font CELL_FONT = new Font("TimesRoman", Font.BOLD, 20);
     private BufferedImage puzzleImage;
+    // The background drawn at the current size of the panel, redrawn only when the size changes
+    private BufferedImage scaledImage;
+    private Board board;
+    private Board givens;
     private PuzzleNode[][] currentBoard;
+    private final PuzzleGenerator generator = new PuzzleGenerator();
 
     /**
      * Construct a new main.Puzzle JPanel
@@ -64,32 +74,12 @@ public class Puzzle extends JPanel {
     }
 
     /**
-     * Generates a random Sudoku puzzle.
+     * Generates a random Sudoku puzzle with a unique solution.
      */
     public void generateRandomBoard() {
-        // Setup nodes
-        this.currentBoard = new PuzzleNode[NUMBER_OF_SQUARES][NUMBER_OF_SQUARES];
-        for (int x = 0; x < NUMBER_OF_SQUARES; x++) {
-            for (int y = 0; y < NUMBER_OF_SQUARES; y++) {
-                currentBoard[x][y] = new PuzzleNode(0);
-            }
-        }
-
-        // Generate numbers..
-        for (int x = 0; x < NUMBER_OF_SQUARES; x++) {
-            for (int y = 0; y < NUMBER_OF_SQUARES; y++) {
-                // 75% chance that a number will be placed at a given empty position
-                if (Math.random() < .75) {
-                    continue;
-                }
-                // Make sure the number validated is valid.
-                int number = (int) (Math.random() * NUMBER_OF_SQUARES + 1);
-                while (!PuzzleHelpers.checkValid(currentBoard, x, y, number)) {
-                    number = (int) (Math.random() * NUMBER_OF_SQUARES + 1);
-                }
-                currentBoard[x][y].setValue(number);
-            }
-        }
+        Board board = generator.generate(Difficulty.MEDIUM);
+        this.givens = board.copy();
+        setBoard(board);
     }
 
 
@@ -114,7 +104,7 @@ public class Puzzle extends JPanel {
             return;
         }
         int number = attemptParse(s);
-        while (number < 0 || number > 9 || !PuzzleHelpers.checkValid(currentBoard, x, y, number)) {
+        while (number < 0 || number > 9 || !PuzzleHelpers.checkValid(board, x, y, number)) {
             s = JOptionPane.showInputDialog(null,
                     "Try again... number (0-9):", "Changing number for index: (" + x + "," + y + ")", JOptionPane.QUESTION_MESSAGE);
             if (s == null) {
@@ -126,7 +116,8 @@ public class Puzzle extends JPanel {
         }
 
         // Set the value and repaint
-        currentBoard[x][y].setValue(number);
+        board.setValue(x, y, number);
+        givens.setValue(x, y, number);
         repaint();
     }
 
@@ -154,35 +145,82 @@ public class Puzzle extends JPanel {
         graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 
         // Draw the puzzle image.
-        Image scaledImage = puzzleImage.getScaledInstance(getWidth(), getHeight(), Image.SCALE_SMOOTH);
-        graphics.drawImage(scaledImage, 0, 0, this);
+        if (getWidth() > 0 && getHeight() > 0) {
+            if (scaledImage == null || scaledImage.getWidth() != getWidth() || scaledImage.getHeight() != getHeight()) {
+                scaledImage = scaleBackground(getWidth(), getHeight());
+            }
+            graphics.drawImage(scaledImage, 0, 0, null);
+        }
 
 
         // Draw the individual portions
+        graphics.setFont(CELL_FONT);
         int scaleX = getWidth() / NUMBER_OF_SQUARES;
         int scaleY = getHeight() / NUMBER_OF_SQUARES;
         for (int x = 0; x < NUMBER_OF_SQUARES; x++) {
             for (int y = 0; y < NUMBER_OF_SQUARES; y++) {
-                if (currentBoard[x][y].getValue() == 0) {
+                if (board.getValue(x, y) == 0) {
                     continue;
                 }
                 int realX = (x * scaleX + getWidth() / NUMBER_OF_SQUARES / SQUARE_WIDTH + 8) % getWidth();
                 int realY = (y * scaleY + getHeight() / NUMBER_OF_SQUARES / SQUARE_HEIGHT + 15) % getHeight();
-                int value = currentBoard[x][y].getValue();
+                int value = board.getValue(x, y);
                 graphics.setColor(currentBoard[x][y].getColor());
-                graphics.setFont(new Font("TimesRoman", Font.BOLD, 20));
                 graphics.drawString(String.valueOf(value), realX, realY);
             }
         }
     }
 
+    /**
+     * Draws the background image into a new image of a given size. Drawn right away, unlike the images of
+     * {@link Image#getScaledInstance(int, int, int)} which are only produced once something draws them.
+     *
+     * @param width  The width of the new image
+     * @param height The height of the new image
+     * @return The scaled background
+     */
+    private BufferedImage scaleBackground(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(puzzleImage, 0, 0, width, height, null);
+        graphics.dispose();
+        return image;
+    }
+
 
     public PuzzleNode[][] getCurrentBoard() {
         return currentBoard;
     }
 
-    public void setCurrentBoard(PuzzleNode[][] currentBoard) {
-        this.currentBoard = currentBoard;
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Replaces the board being displayed, keeping the current givens so that solved cells are still drawn in red.
+     *
+     * @param board The new board
+     */
+    public void setBoard(Board board) {
+        this.board = board;
+        this.currentBoard = new PuzzleNode[NUMBER_OF_SQUARES][NUMBER_OF_SQUARES];
+        for (int x = 0; x < NUMBER_OF_SQUARES; x++) {
+            for (int y = 0; y < NUMBER_OF_SQUARES; y++) {
+                currentBoard[x][y] = new PuzzleNode(board, givens, x, y);
+            }
+        }
+    }
+
+    /**
+     * Copies the cells of another board into the displayed board and repaints it. Must be called on the Swing thread.
+     *
+     * @param board The board to show
+     */
+    public void showBoard(Board board) {
+        this.board.copyFrom(board);
+        repaint();
     }
 
     @Override
@@ -190,12 +228,12 @@ public class Puzzle extends JPanel {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Puzzle puzzle = (Puzzle) o;
-        return Arrays.equals(currentBoard, puzzle.currentBoard);
+        return Objects.equals(board, puzzle.board);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(currentBoard);
+        return Objects.hashCode(board);
     }
 
 }
@@ -1,5 +1,8 @@
 package main;
 
+import main.board.Board;
+import main.board.Geometry;
+
 /**
  * Helper class used for the puzzles..
  *
@@ -16,33 +19,37 @@ public class PuzzleHelpers {
      * @param number   The number to check
      * @return True if it is a valid number... (does not interfere in rows, columns or same square) otherwise False
      */
-    public static boolean checkValid(PuzzleNode[][] board, int currentX, int currentY, int number) {
+    public static boolean checkValid(Board board, int currentX, int currentY, int number) {
         if (number == 0) {
             return true;
         }
+        Geometry geometry = board.getGeometry();
+        int size = geometry.getSize();
+        int boxWidth = geometry.getBoxWidth();
+        int boxHeight = geometry.getBoxHeight();
         // Check row
-        for (int x = 0; x < Puzzle.NUMBER_OF_SQUARES; x++) {
-            if (board[x][currentY].getValue() == number) {
+        for (int x = 0; x < size; x++) {
+            if (board.getValue(x, currentY) == number) {
                 return false;
             }
         }
 
         // Check column
-        for (int y = 0; y < Puzzle.NUMBER_OF_SQUARES; y++) {
-            if (board[currentX][y].getValue() == number) {
+        for (int y = 0; y < size; y++) {
+            if (board.getValue(currentX, y) == number) {
                 return false;
             }
         }
 
         // Check current square
-        int squareX = (int) (Math.floor(currentX / Puzzle.SQUARE_WIDTH) * Puzzle.SQUARE_WIDTH);
-        int squareY = (int) (Math.floor(currentY / Puzzle.SQUARE_HEIGHT) * Puzzle.SQUARE_HEIGHT);
+        int squareX = (currentX / boxWidth) * boxWidth;
+        int squareY = (currentY / boxHeight) * boxHeight;
 
-        for (int i = 0; i < Puzzle.SQUARE_WIDTH; i++) {
-            for (int j = 0; j < Puzzle.SQUARE_HEIGHT; j++) {
+        for (int i = 0; i < boxWidth; i++) {
+            for (int j = 0; j < boxHeight; j++) {
                 if (currentX == squareX + i && currentY == squareY) continue;
 
-                if (board[squareX + i][squareY + j].getValue() == number) {
+                if (board.getValue(squareX + i, squareY + j) == number) {
                     return false;
                 }
             }
@@ -57,12 +64,10 @@ public class PuzzleHelpers {
      * @param board The given board to check.
      * @return True if the board is filled otherwise False
      */
-    public static boolean isFinished(PuzzleNode[][] board) {
-        for (int x = 0; x < Puzzle.NUMBER_OF_SQUARES; x++) {
-            for (int y = 0; y < Puzzle.NUMBER_OF_SQUARES; y++) {
-                if (board[x][y].getValue() == 0) {
-                    return false;
-                }
+    public static boolean isFinished(Board board) {
+        for (int i = 0; i < board.getGeometry().getCells(); i++) {
+            if (board.get(i) == 0) {
+                return false;
             }
         }
 
@@ -1,47 +1,44 @@
 package main;
 
+import main.board.Board;
+
 import java.awt.*;
 import java.util.Objects;
 
+/**
+ * A view of a single cell of a {@link Board} used by the GUI. The value lives in the board itself, the node only adds
+ * the color the cell is drawn with: black for cells given by the puzzle and red for cells filled in while solving.
+ *
+ * @author Matthew Lillie
+ */
 public class PuzzleNode {
-    int value;
-    Color color;
+    private final Board board;
+    private final Board givens;
+    private final int x;
+    private final int y;
 
-    PuzzleNode(int value) {
-        this.value = value;
-        this.color = Color.BLACK;
+    PuzzleNode(Board board, Board givens, int x, int y) {
+        this.board = board;
+        this.givens = givens;
+        this.x = x;
+        this.y = y;
     }
 
     public int getValue() {
-        return value;
+        return board.getValue(x, y);
     }
 
     public void setValue(int value) {
-        this.value = value;
+        board.setValue(x, y, value);
     }
 
     public Color getColor() {
-        return color;
-    }
-
-    public void setColor(Color color) {
-        this.color = color;
+        return givens.getValue(x, y) != 0 ? Color.BLACK : Color.RED;
     }
 
     @Override
     public String toString() {
-        return String.valueOf(value);
-    }
-
-    @Override
-    public Object clone() {
-        try {
-            return super.clone();
-        } catch (CloneNotSupportedException e) {
-            PuzzleNode puzzleNode = new PuzzleNode(value);
-            puzzleNode.color = color;
-            return puzzleNode;
-        }
+        return String.valueOf(getValue());
     }
 
     @Override
@@ -49,11 +46,11 @@ public class PuzzleNode {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PuzzleNode that = (PuzzleNode) o;
-        return value == that.value;
+        return getValue() == that.getValue();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Objects.hash(getValue());
     }
-}
\ No newline at end of file
+}
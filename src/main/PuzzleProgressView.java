@@ -0,0 +1,83 @@
+package main;
+
+import main.board.Board;
+import main.solvers.ProgressListener;
+
+import javax.swing.Timer;
+
+/**
+ * Shows a running solve on a {@link Puzzle} without slowing the solve down. A Swing timer asks for a snapshot a fixed
+ * number of times per second, the search copies its board in at its next node and the following tick shows it. In
+ * between, the search pays for nothing but a volatile read per node and the Swing thread only repaints once per tick.
+ *
+ * @author Matthew Lillie
+ */
+public class PuzzleProgressView implements ProgressListener {
+
+    private final Puzzle puzzle;
+    private final Timer timer;
+    // Latest board handed over by the search, guarded by itself
+    private final Board snapshot = new Board();
+    private boolean fresh;
+    private volatile boolean wanted;
+
+    /**
+     * Construct a new progress view.
+     *
+     * @param puzzle          The puzzle to show the progress on
+     * @param framesPerSecond The most snapshots to show per second
+     */
+    public PuzzleProgressView(Puzzle puzzle, int framesPerSecond) {
+        this.puzzle = puzzle;
+        this.timer = new Timer(1000 / framesPerSecond, (actionEvent) -> tick());
+    }
+
+    /**
+     * Starts sampling the search.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops sampling the search. Snapshots that have not been shown yet are dropped.
+     */
+    public void stop() {
+        timer.stop();
+        synchronized (snapshot) {
+            wanted = false;
+            fresh = false;
+        }
+    }
+
+    @Override
+    public boolean isSnapshotWanted() {
+        return wanted;
+    }
+
+    @Override
+    public void snapshot(Board board) {
+        synchronized (snapshot) {
+            // Another worker thread may have answered first
+            if (!wanted) {
+                return;
+            }
+            wanted = false;
+            snapshot.copyFrom(board);
+            fresh = true;
+        }
+    }
+
+    /**
+     * Shows the snapshot taken since the last tick, if any, and asks for the next one. Runs on the Swing thread.
+     */
+    private void tick() {
+        synchronized (snapshot) {
+            if (fresh) {
+                puzzle.showBoard(snapshot);
+                fresh = false;
+            }
+        }
+        wanted = true;
+    }
+}
@@ -1,8 +1,11 @@
 package main;
 
+import main.board.Board;
 import main.solvers.ForkPoolAllSolver;
 import main.solvers.ParallelBacktrackingSolver;
+import main.solvers.SearchContext;
 import main.solvers.SequentialBacktrackingSolver;
+import main.solvers.SolveResult;
 import main.solvers.Solver;
 
 import javax.swing.*;
@@ -14,8 +17,14 @@ import javax.swing.*;
  */
 public class PuzzleSettings extends JPanel {
 
+    // How often a running solve is shown
+    private static final int FRAMES_PER_SECOND = 30;
+
     // The thread that is solving the puzzle; separate from the main Swing Thread.
     private Thread solvingThread;
+    // The search currently running, cancelled by the stop button together with the solves still to come
+    private volatile SearchContext running;
+    private volatile boolean stopRequested;
 
     /**
      * Construct a new Settings JPanel with the puzzle it is using.
@@ -29,29 +38,12 @@ public class PuzzleSettings extends JPanel {
         JButton stopButton = new JButton("Stop Solving");
         solveButton.addActionListener((actionEvent) -> {
             if (solvingThread == null) {
+                stopRequested = false;
                 solvingThread = new Thread(() -> {
-                    final PuzzleNode[][] currentBoard = puzzle.getCurrentBoard();
-                    Solver solver = new ParallelBacktrackingSolver();
-
-                    long start = System.currentTimeMillis();
-                    solver.solve(puzzle);
-                    System.out.println("MT Found in " + (System.currentTimeMillis() - start) + "ms");
-
-                    puzzle.setCurrentBoard(currentBoard);
-                    puzzle.repaint();
-
-                    solver = new SequentialBacktrackingSolver();
-                    start = System.currentTimeMillis();
-                    solver.solve(puzzle);
-                    System.out.println("S Found in " + (System.currentTimeMillis() - start) + "ms");
-
-                    puzzle.setCurrentBoard(currentBoard);
-                    puzzle.repaint();
-
-                    solver = new ForkPoolAllSolver();
-                    start = System.currentTimeMillis();
-                    solver.solve(puzzle);
-                    System.out.println("F Found in " + (System.currentTimeMillis() - start) + "ms");
+                    final Board currentBoard = puzzle.getBoard().copy();
+                    solve("MT", new ParallelBacktrackingSolver(), puzzle, currentBoard);
+                    solve("S", new SequentialBacktrackingSolver(), puzzle, currentBoard);
+                    solve("F", new ForkPoolAllSolver(), puzzle, currentBoard);
                     solvingThread = null;
                 });
                 solvingThread.start();
@@ -59,14 +51,52 @@ public class PuzzleSettings extends JPanel {
 
         });
 
+        stopButton.addActionListener((actionEvent) -> {
+            stopRequested = true;
+            SearchContext context = running;
+            if (context != null) {
+                context.cancel();
+            }
+        });
+
         newButton.addActionListener((actionEvent -> {
-            if (PuzzleHelpers.isFinished(puzzle.getCurrentBoard()) || solvingThread == null) {
+            if (PuzzleHelpers.isFinished(puzzle.getBoard()) || solvingThread == null) {
                 puzzle.generateRandomBoard();
                 puzzle.repaint();
             }
         }));
 
         this.add(solveButton);
+        this.add(stopButton);
         this.add(newButton);
     }
+
+    /**
+     * Solves a copy of the starting board while showing its progress on the puzzle, then shows the result. Nothing
+     * is solved once the stop button has been pressed.
+     *
+     * @param name   The name the timing is printed with
+     * @param solver The solver to use
+     * @param puzzle The puzzle to show the progress on
+     * @param start  The board to start from, left untouched
+     */
+    private void solve(String name, Solver solver, Puzzle puzzle, Board start) {
+        if (stopRequested) {
+            return;
+        }
+        Board board = start.copy();
+        PuzzleProgressView progress = new PuzzleProgressView(puzzle, FRAMES_PER_SECOND);
+        SearchContext context = new SearchContext(progress);
+        running = context;
+        // The button may have been pressed before the context was published
+        if (stopRequested) {
+            context.cancel();
+        }
+        progress.start();
+        SolveResult result = solver.solveWithStats(board, context);
+        running = null;
+        System.out.println(name + " " + result);
+        progress.stop();
+        SwingUtilities.invokeLater(() -> puzzle.showBoard(board));
+    }
 }
@@ -0,0 +1,107 @@
+package main.batch;
+
+import main.board.Geometry;
+import main.cache.CachingSolver;
+import main.cache.SolutionCache;
+import main.cache.SolutionStore;
+import main.metrics.JmxMetricsSink;
+import main.solvers.PortfolioSolver;
+import main.solvers.Solver;
+import main.solvers.Solvers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Headless command line entry point that solves a file of puzzles, one line per puzzle with '.' or '0' for blanks,
+ * and streams the solutions out in the same format. Puzzles are classic 81 character lines unless another board size
+ * is given, such as 16 for 256 character lines using 'A' to 'G' for values above 9. Input files are memory-mapped so
+ * corpora of any size are handled with constant memory. The report is printed to standard error.
+ * <p>
+ * Usage: {@code [--threads n] [--solver name] [--size n] [--jmx] [--cache n] [--store directory] [--timeout ms]
+ * [--nodes n] [--output file] [input file or -]} where the solver is one of {@link Solvers#names()}. With
+ * {@code --jmx} the search statistics of every solve are exported through JMX while the batch runs and their totals
+ * are added to the report. With {@code --cache n} up to n solutions are cached by canonical puzzle, so repeated and
+ * equivalent puzzles are only solved once, and with {@code --store} solutions are also kept in a
+ * {@link SolutionStore} that survives restarts. With {@code --timeout} and {@code --nodes} every solve is given up on
+ * after that many milliseconds or search nodes.
+ *
+ * @author Matthew Lillie
+ */
+public class BatchMain {
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String solverName = "sequential";
+        String inputName = "-";
+        String outputName = "-";
+        Geometry geometry = Geometry.CLASSIC;
+        JmxMetricsSink metrics = null;
+        SolutionCache cache = null;
+        Path storeDirectory = null;
+        long timeoutMillis = 0;
+        long nodeBudget = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--solver":
+                    solverName = CommandLine.requireValue(args, ++i);
+                    break;
+                case "--size":
+                    geometry = CommandLine.requireSize(args, ++i);
+                    break;
+                case "--jmx":
+                    metrics = new JmxMetricsSink();
+                    break;
+                case "--cache":
+                    cache = new SolutionCache(Integer.parseInt(CommandLine.requireValue(args, ++i)));
+                    break;
+                case "--store":
+                    storeDirectory = Paths.get(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--timeout":
+                    timeoutMillis = Long.parseLong(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--nodes":
+                    nodeBudget = Long.parseLong(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--output":
+                    outputName = CommandLine.requireValue(args, ++i);
+                    break;
+                default:
+                    inputName = args[i];
+            }
+        }
+
+        Solver created = Solvers.create(solverName);
+        Solver solver = created;
+        try (SolutionStore store = storeDirectory != null ? SolutionStore.open(storeDirectory) : null;
+             PuzzleReader input = CommandLine.openInput(inputName);
+             SolutionWriter output = CommandLine.openOutput(outputName)) {
+            if (cache != null || store != null) {
+                solver = new CachingSolver(solver, cache, store);
+            }
+            BatchSolver batchSolver = new BatchSolver(solver, threads, geometry, solverName, metrics);
+            batchSolver.setLimits(timeoutMillis, nodeBudget);
+            BatchReport report = batchSolver.solve(input, output);
+            System.err.println(report);
+            if (metrics != null) {
+                System.err.println("Search: " + metrics.getMetrics(solverName));
+            }
+            if (cache != null) {
+                System.err.println("Cache: " + cache);
+            }
+            if (store != null) {
+                System.err.println("Store: " + store);
+            }
+            if (created instanceof PortfolioSolver) {
+                System.err.println("Wins: " + ((PortfolioSolver) created).getWins());
+                ((PortfolioSolver) created).close();
+            }
+        }
+    }
+}
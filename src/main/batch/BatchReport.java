@@ -0,0 +1,88 @@
+package main.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary of a batch run: how many puzzles were read, solved, given up on and rejected, the overall throughput and the
+ * latency distribution of the individual solves.
+ *
+ * @author Matthew Lillie
+ */
+public class BatchReport {
+
+    private final long puzzles;
+    private final long solved;
+    private final long stopped;
+    private final long invalid;
+    private final long elapsedNanos;
+    private final LatencyHistogram latencies;
+
+    /**
+     * Construct a new report.
+     *
+     * @param puzzles      The number of puzzles read
+     * @param solved       The number of puzzles solved
+     * @param stopped      The number of puzzles given up on at a time or node limit
+     * @param invalid      The number of lines that could not be parsed as a puzzle
+     * @param elapsedNanos The wall clock time of the whole run
+     * @param latencies    The latencies of the individual solves
+     */
+    public BatchReport(long puzzles, long solved, long stopped, long invalid, long elapsedNanos,
+                       LatencyHistogram latencies) {
+        this.puzzles = puzzles;
+        this.solved = solved;
+        this.stopped = stopped;
+        this.invalid = invalid;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+    }
+
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    public long getSolved() {
+        return solved;
+    }
+
+    public long getStopped() {
+        return stopped;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return The number of puzzles handled per second of wall clock time
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : puzzles * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Puzzles: %d (solved %d, unsolvable %d, stopped %d, invalid %d)%n"
+                        + "Elapsed: %.3f s, throughput: %.1f puzzles/s%n"
+                        + "Latency: mean %s, p50 %s, p90 %s, p99 %s, p99.9 %s, max %s",
+                puzzles, solved, puzzles - solved - stopped - invalid, stopped, invalid,
+                elapsedNanos / 1e9, getThroughput(),
+                format(latencies.getMean()), format(latencies.getPercentile(50)), format(latencies.getPercentile(90)),
+                format(latencies.getPercentile(99)), format(latencies.getPercentile(99.9)), format(latencies.getMax()));
+    }
+
+    private static String format(double nanos) {
+        if (nanos >= 1e6) {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+        return String.format("%.1f us", nanos / 1e3);
+    }
+}
@@ -0,0 +1,304 @@
+package main.batch;
+
+import main.board.Board;
+import main.board.Geometry;
+import main.metrics.MetricsSink;
+import main.solvers.LaneBatchSolver;
+import main.solvers.SearchContext;
+import main.solvers.SolveResult;
+import main.solvers.Solver;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a stream of puzzles of one shape, one line per puzzle, across a pool of worker threads. Solutions are
+ * written out in the same format and in the same order as the input. Lines that could not be solved or parsed are
+ * written back unchanged so that output line n always belongs to the n-th puzzle line, blank lines being skipped.
+ * <p>
+ * Puzzles are parsed into a fixed ring of reusable slots, one per puzzle allowed in flight, so memory stays constant
+ * however large the input is and no per-puzzle boards or Strings are created.
+ * <p>
+ * A {@link LaneBatchSolver} is handed consecutive puzzles in groups of as many as it has lanes, unless the result of
+ * every solve is wanted by a metrics sink. Each puzzle of a group is then charged an equal share of its solve time.
+ *
+ * @author Matthew Lillie
+ */
+public class BatchSolver {
+
+    /**
+     * Number of puzzles allowed in flight per worker thread.
+     */
+    private static final int WINDOW_PER_THREAD = 64;
+
+    private final Solver solver;
+    private final int threads;
+    private final Geometry geometry;
+    private final String solverName;
+    private final MetricsSink metrics;
+    // Limits of every solve, 0 for none
+    private long timeoutMillis;
+    private long nodeBudget;
+
+    /**
+     * Construct a new batch solver for puzzles of a given shape that reports the result of every solve.
+     *
+     * @param solver     The solver to use, shared by every worker thread
+     * @param threads    The number of worker threads
+     * @param geometry   The shape of the puzzles, lines of any other length are invalid
+     * @param solverName The name the results are reported under
+     * @param metrics    The sink receiving the result of every solve, or null for none
+     */
+    public BatchSolver(Solver solver, int threads, Geometry geometry, String solverName, MetricsSink metrics) {
+        this.solver = solver;
+        this.threads = threads;
+        this.geometry = geometry;
+        this.solverName = solverName;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Construct a new batch solver for puzzles of a given shape.
+     *
+     * @param solver   The solver to use, shared by every worker thread
+     * @param threads  The number of worker threads
+     * @param geometry The shape of the puzzles, lines of any other length are invalid
+     */
+    public BatchSolver(Solver solver, int threads, Geometry geometry) {
+        this(solver, threads, geometry, null, null);
+    }
+
+    /**
+     * Construct a new batch solver for classic 9x9 puzzles.
+     *
+     * @param solver  The solver to use, shared by every worker thread
+     * @param threads The number of worker threads
+     */
+    public BatchSolver(Solver solver, int threads) {
+        this(solver, threads, Geometry.CLASSIC);
+    }
+
+    /**
+     * Bounds every solve, so a pathological puzzle is given up on instead of holding up the batch. A puzzle given up
+     * on is written back unchanged like an unsolvable one and counted as stopped.
+     *
+     * @param timeoutMillis The longest a single solve may take, 0 for no limit
+     * @param nodeBudget    The most search nodes a single solve may visit, 0 for no limit
+     */
+    public void setLimits(long timeoutMillis, long nodeBudget) {
+        this.timeoutMillis = timeoutMillis;
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Solves every puzzle read from the input and writes the results to the output.
+     *
+     * @param input  The puzzles, one per line
+     * @param output Where to write the solutions, one per line
+     * @return The report of the run
+     * @throws IOException If reading or writing fails
+     */
+    public BatchReport solve(PuzzleReader input, SolutionWriter output) throws IOException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        Slot[] ring = new Slot[threads * WINDOW_PER_THREAD];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Slot(latencies);
+        }
+        Tally tally = new Tally();
+        Group group = null;
+        if (solver instanceof LaneBatchSolver && metrics == null && timeoutMillis == 0 && nodeBudget == 0) {
+            LaneBatchSolver laneSolver = (LaneBatchSolver) solver;
+            group = new Group(laneSolver, Math.min(laneSolver.getLanes(), ring.length), latencies);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            long next = 0;
+            while (input.nextLine()) {
+                Slot slot = ring[(int) (next++ % ring.length)];
+                // The slot is reused, so its previous puzzle has to be written out first
+                if (slot.used) {
+                    // A puzzle still waiting for its group to fill up, after a run of invalid lines
+                    if (slot.valid && slot.future == null) {
+                        group = group.submit(workers);
+                    }
+                    slot.drain(output, tally);
+                }
+                slot.length = input.copyLine(slot.line);
+                slot.valid = input.parseInto(slot.board);
+                slot.solved = false;
+                slot.stopped = false;
+                slot.used = true;
+                slot.future = null;
+                if (slot.valid) {
+                    if (group == null) {
+                        slot.future = workers.submit(slot);
+                    } else if (group.add(slot)) {
+                        group = group.submit(workers);
+                    }
+                }
+            }
+            if (group != null) {
+                group.submit(workers);
+            }
+            for (long i = Math.max(0, next - ring.length); i < next; i++) {
+                Slot slot = ring[(int) (i % ring.length)];
+                if (slot.used) {
+                    slot.drain(output, tally);
+                }
+            }
+            output.flush();
+        } finally {
+            workers.shutdownNow();
+        }
+        return new BatchReport(tally.puzzles, tally.solved, tally.stopped, tally.invalid, System.nanoTime() - start,
+                latencies);
+    }
+
+    /**
+     * Running totals of the puzzles that have been written out.
+     */
+    private static class Tally {
+
+        private long puzzles;
+        private long solved;
+        private long stopped;
+        private long invalid;
+    }
+
+    /**
+     * Reusable holder for one puzzle in flight: its raw line, its board and the outcome of solving it.
+     */
+    private class Slot implements Runnable {
+
+        private final LatencyHistogram latencies;
+        private final Board board = new Board(geometry);
+        private final byte[] line = new byte[PuzzleReader.MAX_LINE];
+        private int length;
+        private boolean valid;
+        private boolean solved;
+        private boolean stopped;
+        private boolean used;
+        private Future<?> future;
+
+        Slot(LatencyHistogram latencies) {
+            this.latencies = latencies;
+        }
+
+        @Override
+        public void run() {
+            SearchContext context = new SearchContext();
+            if (timeoutMillis > 0) {
+                context.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            context.setNodeBudget(nodeBudget);
+            if (metrics != null) {
+                SolveResult result = solver.solveWithStats(board, context);
+                solved = result.isSolved();
+                latencies.record(result.getWallNanos());
+                metrics.record(solverName, result);
+            } else {
+                long start = System.nanoTime();
+                solved = solver.solve(board, context);
+                latencies.record(System.nanoTime() - start);
+            }
+            stopped = !solved && context.isStopped();
+        }
+
+        /**
+         * Waits for the puzzle to be solved and writes the result.
+         */
+        void drain(SolutionWriter output, Tally tally) throws IOException {
+            if (future != null) {
+                await(future);
+                future = null;
+            }
+            tally.puzzles++;
+            if (solved) {
+                tally.solved++;
+                output.write(board);
+            } else {
+                if (!valid) {
+                    tally.invalid++;
+                } else if (stopped) {
+                    tally.stopped++;
+                }
+                output.write(line, length);
+            }
+            used = false;
+        }
+    }
+
+    /**
+     * Consecutive puzzles solved together by a {@link LaneBatchSolver}. A group is submitted once it is full, or
+     * earlier if one of its slots comes round again before that.
+     */
+    private static class Group implements Runnable {
+
+        private final LaneBatchSolver solver;
+        private final LatencyHistogram latencies;
+        private final Slot[] slots;
+        private final Board[] boards;
+        private final boolean[] solved;
+        private int size;
+
+        Group(LaneBatchSolver solver, int capacity, LatencyHistogram latencies) {
+            this.solver = solver;
+            this.latencies = latencies;
+            this.slots = new Slot[capacity];
+            this.boards = new Board[capacity];
+            this.solved = new boolean[capacity];
+        }
+
+        /**
+         * @return True if the group is full
+         */
+        boolean add(Slot slot) {
+            slots[size] = slot;
+            boards[size] = slot.board;
+            size++;
+            return size == slots.length;
+        }
+
+        /**
+         * Submits the group unless it is empty and returns a new one for the next slots.
+         */
+        Group submit(ExecutorService workers) {
+            if (size == 0) {
+                return this;
+            }
+            Future<?> future = workers.submit(this);
+            for (int i = 0; i < size; i++) {
+                slots[i].future = future;
+            }
+            return new Group(solver, slots.length, latencies);
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            solver.solveAll(boards, size, solved);
+            long share = (System.nanoTime() - start) / size;
+            for (int i = 0; i < size; i++) {
+                slots[i].solved = solved[i];
+                latencies.record(share);
+            }
+        }
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a solve", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Solving failed", e.getCause());
+        }
+    }
+}
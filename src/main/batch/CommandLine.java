@@ -0,0 +1,82 @@
+package main.batch;
+
+import main.board.Board;
+import main.board.Geometry;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Helpers shared by the headless command line entry points for reading their options and opening the puzzle files
+ * they read and write, where {@code -} stands for standard input or output.
+ *
+ * @author Matthew Lillie
+ */
+public final class CommandLine {
+
+    private CommandLine() {
+    }
+
+    /**
+     * Gets the value following an option.
+     *
+     * @param args The command line arguments
+     * @param i    The index of the value
+     * @return The value
+     * @throws IllegalArgumentException If the option is the last argument
+     */
+    public static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Gets the board shape given by the value following a --size option.
+     *
+     * @param args The command line arguments
+     * @param i    The index of the value
+     * @return The geometry of boards of that size
+     * @throws IllegalArgumentException If the value is missing or not a size the line format can hold
+     */
+    public static Geometry requireSize(String[] args, int i) {
+        int size = Integer.parseInt(requireValue(args, i));
+        if (size > Board.MAX_LINE_SIZE) {
+            throw new IllegalArgumentException("Boards larger than " + Board.MAX_LINE_SIZE + " cannot be read");
+        }
+        return Geometry.ofSize(size);
+    }
+
+    /**
+     * Opens the puzzles to read.
+     *
+     * @param name The path of the file, or - for standard input
+     * @return The reader
+     * @throws IOException If the file cannot be opened
+     */
+    public static PuzzleReader openInput(String name) throws IOException {
+        if (name.equals("-")) {
+            return PuzzleReader.of(Channels.newChannel(System.in));
+        }
+        return PuzzleReader.open(Paths.get(name));
+    }
+
+    /**
+     * Opens the file to write results to, replacing what it held.
+     *
+     * @param name The path of the file, or - for standard output
+     * @return The writer
+     * @throws IOException If the file cannot be opened
+     */
+    public static SolutionWriter openOutput(String name) throws IOException {
+        if (name.equals("-")) {
+            return new SolutionWriter(Channels.newChannel(System.out));
+        }
+        return new SolutionWriter(FileChannel.open(Paths.get(name), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+}
@@ -0,0 +1,169 @@
+package main.batch;
+
+import main.board.Board;
+import main.board.Geometry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams puzzle lines from a file or channel without creating intermediate Strings. Files are memory-mapped one
+ * window at a time so that arbitrarily large corpora can be read with constant memory, other channels are read
+ * through a fixed buffer. Each line is copied into a small reusable buffer from which it can be parsed straight into
+ * a {@link Board}.
+ * <p>
+ * Blank lines as well as spaces, tabs and carriage returns are skipped.
+ *
+ * @author Matthew Lillie
+ */
+public class PuzzleReader implements Closeable {
+
+    /**
+     * Longest line that is kept, longer lines are still consumed but can never be a valid puzzle.
+     */
+    public static final int MAX_LINE = Board.MAX_LINE_SIZE * Board.MAX_LINE_SIZE;
+
+    // Constants
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int STREAM_BUFFER = 64 * 1024;
+
+    private final FileChannel file;
+    private final ReadableByteChannel channel;
+    private final byte[] line = new byte[MAX_LINE];
+    private ByteBuffer buffer;
+    private long mapped;
+    private int length;
+    private long lineNumber;
+
+    private PuzzleReader(FileChannel file, ReadableByteChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = file != null ? ByteBuffer.allocate(0) : ByteBuffer.allocate(STREAM_BUFFER).flip();
+    }
+
+    /**
+     * Opens a reader that memory-maps the given file.
+     *
+     * @param path The file to read
+     * @return The reader
+     * @throws IOException If the file cannot be opened
+     */
+    public static PuzzleReader open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        return new PuzzleReader(file, file);
+    }
+
+    /**
+     * Creates a reader that streams from a channel, such as standard input.
+     *
+     * @param channel The channel to read
+     * @return The reader
+     */
+    public static PuzzleReader of(ReadableByteChannel channel) {
+        return new PuzzleReader(null, channel);
+    }
+
+    /**
+     * Advances to the next non-blank line.
+     *
+     * @return False once the input is exhausted otherwise True
+     * @throws IOException If reading fails
+     */
+    public boolean nextLine() throws IOException {
+        length = 0;
+        while (true) {
+            if (!buffer.hasRemaining() && !refill()) {
+                return finishLine();
+            }
+            byte b = buffer.get();
+            if (b == '\n') {
+                if (finishLine()) {
+                    return true;
+                }
+            } else if (b != '\r' && b != ' ' && b != '\t') {
+                if (length < MAX_LINE) {
+                    line[length] = b;
+                }
+                length++;
+            }
+        }
+    }
+
+    /**
+     * Parses the current line into a board, which also fixes the shape the line must have.
+     *
+     * @param board The board to fill
+     * @return False if the line is not a valid puzzle, in which case the board is left in an undefined state
+     */
+    public boolean parseInto(Board board) {
+        Geometry geometry = board.getGeometry();
+        if (length != geometry.getCells()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int value = Board.cellValue(line[i]);
+            if (value < 0 || value > geometry.getSize()) {
+                return false;
+            }
+            board.set(i, value);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the raw bytes of the current line, cut off at {@link #MAX_LINE}.
+     *
+     * @param target The array to copy into, at least {@link #MAX_LINE} long
+     * @return The number of bytes copied
+     */
+    public int copyLine(byte[] target) {
+        int n = Math.min(length, MAX_LINE);
+        System.arraycopy(line, 0, target, 0, n);
+        return n;
+    }
+
+    /**
+     * @return The number of the current line, counting only non-blank lines
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean finishLine() {
+        if (length == 0) {
+            return false;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    private boolean refill() throws IOException {
+        if (file != null) {
+            long size = file.size();
+            if (mapped >= size) {
+                return false;
+            }
+            long window = Math.min(MAP_WINDOW, size - mapped);
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, mapped, window);
+            mapped += window;
+            return true;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+}
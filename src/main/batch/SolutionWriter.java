@@ -0,0 +1,85 @@
+package main.batch;
+
+import main.board.Board;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes solved boards as 81 character lines through a fixed buffer straight into a channel, without creating
+ * intermediate Strings.
+ *
+ * @author Matthew Lillie
+ */
+public class SolutionWriter implements Closeable, Flushable {
+
+    // Constants
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Construct a new writer.
+     *
+     * @param channel The channel to write to
+     */
+    public SolutionWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a board as a single line.
+     *
+     * @param board The board to write
+     * @throws IOException If writing fails
+     */
+    public void write(Board board) throws IOException {
+        int cells = board.getGeometry().getCells();
+        ensureRoom(cells + 1);
+        for (int i = 0; i < cells; i++) {
+            buffer.put((byte) Board.cellCharacter(board.get(i)));
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes raw bytes followed by a line break.
+     *
+     * @param line   The bytes to write
+     * @param length The number of bytes to write
+     * @throws IOException If writing fails
+     */
+    public void write(byte[] line, int length) throws IOException {
+        ensureRoom(length + 1);
+        buffer.put(line, 0, length);
+        buffer.put((byte) '\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package main.board;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact, display-free representation of a Sudoku board. Every cell is stored row by row in a single byte array where
+ * a value of 0 marks an empty cell, so a board is one small allocation instead of a grid of node objects.
+ * <p>
+ * The shape of the board is described by its {@link Geometry}, which defaults to the classic 9x9 board. Coordinates
+ * follow the same convention as {@link main.Puzzle}: x is the column and y is the row.
+ *
+ * @author Matthew Lillie
+ */
+public final class Board {
+
+    // Dimensions of the classic board
+    public static final int SIZE = 9;
+    public static final int BOX_WIDTH = 3;
+    public static final int BOX_HEIGHT = 3;
+    public static final int CELLS = SIZE * SIZE;
+
+    /**
+     * Largest board the line format can hold, one symbol for each of the digits 1-9 and the letters A-Z.
+     */
+    public static final int MAX_LINE_SIZE = 35;
+
+    private final Geometry geometry;
+    private final byte[] cells;
+
+    /**
+     * Construct a new empty classic 9x9 board.
+     */
+    public Board() {
+        this(Geometry.CLASSIC);
+    }
+
+    /**
+     * Construct a new empty board of a given shape.
+     *
+     * @param geometry The shape of the board
+     */
+    public Board(Geometry geometry) {
+        this(geometry, new byte[geometry.getCells()]);
+    }
+
+    private Board(Geometry geometry, byte[] cells) {
+        this.geometry = geometry;
+        this.cells = cells;
+    }
+
+    /**
+     * Parses a board from a line read row by row, where '.' or '0' marks an empty cell. The shape of the board is
+     * taken from the length of the line, see {@link Geometry#ofCells(int)}.
+     *
+     * @param line The line to parse
+     * @return The parsed board
+     * @throws IllegalArgumentException If the length of the line is not a valid board or it contains an invalid
+     *                                  character
+     */
+    public static Board parse(CharSequence line) {
+        return parse(line, Geometry.ofCells(line.length()));
+    }
+
+    /**
+     * Parses a board of a given shape from a line read row by row, where '.' or '0' marks an empty cell.
+     *
+     * @param line     The line to parse
+     * @param geometry The shape of the board
+     * @return The parsed board
+     * @throws IllegalArgumentException If the line has the wrong length or contains an invalid character, or the
+     *                                  board is larger than {@link #MAX_LINE_SIZE}
+     */
+    public static Board parse(CharSequence line, Geometry geometry) {
+        if (geometry.getSize() > MAX_LINE_SIZE) {
+            throw new IllegalArgumentException("Boards of size " + geometry.getSize() + " have no line format");
+        }
+        int size = geometry.getCells();
+        if (line.length() != size) {
+            throw new IllegalArgumentException("Expected " + size + " characters but got " + line.length());
+        }
+        byte[] cells = new byte[size];
+        for (int i = 0; i < size; i++) {
+            char c = line.charAt(i);
+            int value = cellValue(c);
+            if (value < 0 || value > geometry.getSize()) {
+                throw new IllegalArgumentException("Invalid character '" + c + "' at position " + i);
+            }
+            cells[i] = (byte) value;
+        }
+        return new Board(geometry, cells);
+    }
+
+    /**
+     * Gets the value of a single character of the line format. Values above 9 are written as letters, so 'A' (or
+     * 'a') is 10 and 'Z' is 35.
+     *
+     * @param c The character
+     * @return The value of the cell, 0 for '.' or '0', otherwise -1 if the character is not valid
+     */
+    public static int cellValue(int c) {
+        if (c == '.' || c == '0') {
+            return 0;
+        }
+        if (c >= '1' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the character of the line format for a cell value.
+     *
+     * @param value The value of the cell
+     * @return The character, '.' for an empty cell
+     * @throws IllegalArgumentException If the value is above {@link #MAX_LINE_SIZE}
+     */
+    public static char cellCharacter(int value) {
+        if (value == 0) {
+            return '.';
+        }
+        if (value > MAX_LINE_SIZE) {
+            throw new IllegalArgumentException("No character for value " + value);
+        }
+        return value < 10 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    /**
+     * Gets the index of a cell within the flat cell array of a classic board.
+     *
+     * @param x The column
+     * @param y The row
+     * @return The index of the cell
+     * @see Geometry#index(int, int)
+     */
+    public static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    public int getValue(int x, int y) {
+        return cells[geometry.index(x, y)];
+    }
+
+    public void setValue(int x, int y, int value) {
+        cells[geometry.index(x, y)] = (byte) value;
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public void set(int index, int value) {
+        cells[index] = (byte) value;
+    }
+
+    /**
+     * Counts the number of empty cells on the board.
+     *
+     * @return The number of cells with a value of 0
+     */
+    public int countEmpty() {
+        int empty = 0;
+        for (byte cell : cells) {
+            if (cell == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Gets the number of bytes a board of a given shape takes when packed, see {@link #pack(ByteBuffer)}.
+     *
+     * @param geometry The shape of the board
+     * @return The packed length in bytes, 41 for a classic board
+     */
+    public static int packedLength(Geometry geometry) {
+        return (geometry.getCells() * bitsPerCell(geometry) + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    // Just enough bits for every value including blank, a nibble for a classic board
+    private static int bitsPerCell(Geometry geometry) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(geometry.getSize());
+    }
+
+    /**
+     * Writes the cells of this board to a buffer using as few bits per cell as the values need, most significant bit
+     * first. The shape of the board is not written.
+     *
+     * @param buffer The buffer to write {@link #packedLength(Geometry)} bytes to
+     */
+    public void pack(ByteBuffer buffer) {
+        int bits = bitsPerCell(geometry);
+        int pending = 0;
+        int count = 0;
+        for (byte cell : cells) {
+            pending = pending << bits | cell;
+            count += bits;
+            while (count >= Byte.SIZE) {
+                count -= Byte.SIZE;
+                buffer.put((byte) (pending >>> count));
+            }
+        }
+        if (count > 0) {
+            buffer.put((byte) (pending << (Byte.SIZE - count)));
+        }
+    }
+
+    /**
+     * Reads a board written by {@link #pack(ByteBuffer)}.
+     *
+     * @param buffer   The buffer to read {@link #packedLength(Geometry)} bytes from
+     * @param geometry The shape of the board
+     * @return The board
+     */
+    public static Board unpack(ByteBuffer buffer, Geometry geometry) {
+        int bits = bitsPerCell(geometry);
+        int mask = (1 << bits) - 1;
+        byte[] cells = new byte[geometry.getCells()];
+        int pending = 0;
+        int count = 0;
+        for (int i = 0; i < cells.length; i++) {
+            while (count < bits) {
+                pending = pending << Byte.SIZE | buffer.get() & 0xFF;
+                count += Byte.SIZE;
+            }
+            count -= bits;
+            cells[i] = (byte) (pending >>> count & mask);
+        }
+        return new Board(geometry, cells);
+    }
+
+    /**
+     * Creates an independent copy of this board.
+     *
+     * @return The copy
+     */
+    public Board copy() {
+        return new Board(geometry, cells.clone());
+    }
+
+    /**
+     * Overwrites every cell of this board with the cells of another board of the same shape.
+     *
+     * @param other The board to copy from
+     */
+    public void copyFrom(Board other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return The board as a single line, 81 characters for a classic board, with '.' for empty cells
+     * @throws IllegalArgumentException If the board is larger than {@link #MAX_LINE_SIZE} and holds a value beyond it
+     */
+    @Override
+    public String toString() {
+        char[] line = new char[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            line[i] = cellCharacter(cells[i]);
+        }
+        return new String(line);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Board board = (Board) o;
+        return geometry == board.geometry && Arrays.equals(cells, board.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+}
@@ -0,0 +1,271 @@
+package main.board;
+
+import java.util.Arrays;
+
+/**
+ * Incremental constraint state for a {@link Board}. Keeps a bitmask of the digits used by every row, column and box
+ * together with the number of empty cells, updated as digits are placed. Checking whether a digit fits a cell is then
+ * a single AND and checking whether the board is finished is a single comparison.
+ * <p>
+ * Candidates can additionally be eliminated from single cells, which is how deductions that are not implied by the
+ * unit masks are recorded. Every placement and elimination is pushed onto a trail so that a search can take a
+ * {@link #mark()} before trying something and {@link #undo(int)} back to it afterwards.
+ * <p>
+ * Digit n is represented by bit (n - 1) of a long, which covers boards of up to {@link Geometry#MAX_SIZE} symbols, so
+ * a mask equal to {@link Geometry#getAllDigits()} means every digit is used.
+ *
+ * @author Matthew Lillie
+ */
+public final class CandidateState {
+
+    private final Board board;
+    private final Geometry geometry;
+    private final long allDigits;
+    private final int columnUnits;
+    private final int boxUnits;
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int[] boxOf;
+    // Used digits for every unit, indexed the same way as Geometry#unit
+    private final long[] units;
+    private final long[] eliminated;
+    // Trail of changes, a mask of 0 marks a placement otherwise the candidates that were eliminated
+    private int[] trailCells;
+    private long[] trailMasks;
+    private int trailSize;
+    private int empty;
+    private boolean consistent = true;
+
+    /**
+     * Construct the constraint state for a board. The board is shared, not copied, so placements made through this
+     * state are written straight into it.
+     *
+     * @param board The board to track
+     */
+    public CandidateState(Board board) {
+        this(board, board.getGeometry());
+        for (int index = 0; index < geometry.getCells(); index++) {
+            int digit = board.get(index);
+            if (digit == 0) {
+                empty++;
+            } else if (canPlace(index, digit)) {
+                addToUnits(index, bit(digit));
+            } else {
+                consistent = false;
+            }
+        }
+    }
+
+    private CandidateState(Board board, Geometry geometry) {
+        this.board = board;
+        this.geometry = geometry;
+        this.allDigits = geometry.getAllDigits();
+        this.columnUnits = geometry.getSize();
+        this.boxUnits = geometry.getSize() * 2;
+        this.rowOf = geometry.rowOf;
+        this.columnOf = geometry.columnOf;
+        this.boxOf = geometry.boxOf;
+        this.units = new long[geometry.getUnits()];
+        this.eliminated = new long[geometry.getCells()];
+        // Enough for placing every cell, eliminations grow the trail on demand
+        this.trailCells = new int[geometry.getCells()];
+        this.trailMasks = new long[geometry.getCells()];
+    }
+
+    private CandidateState(CandidateState other) {
+        this(other.board.copy(), other.geometry);
+        System.arraycopy(other.units, 0, units, 0, units.length);
+        System.arraycopy(other.eliminated, 0, eliminated, 0, eliminated.length);
+        this.empty = other.empty;
+        this.consistent = other.consistent;
+    }
+
+    /**
+     * Gets the bit used for a digit within the masks.
+     *
+     * @param digit The digit, starting at 1
+     * @return The bit for that digit
+     */
+    public static long bit(int digit) {
+        return 1L << (digit - 1);
+    }
+
+    /**
+     * Gets the digit represented by a mask with a single bit set.
+     *
+     * @param bit The bit
+     * @return The digit, starting at 1
+     */
+    public static int digit(long bit) {
+        return Long.numberOfTrailingZeros(bit) + 1;
+    }
+
+    /**
+     * Determines if a digit can be placed in a cell without clashing with its row, column or box.
+     *
+     * @param index The index of the cell
+     * @param digit The digit to check
+     * @return True if the digit is not yet used by any unit of the cell otherwise False
+     */
+    public boolean canPlace(int index, int digit) {
+        return (used(index) & bit(digit)) == 0;
+    }
+
+    /**
+     * Gets the digits that can still be placed in a cell, taking eliminations into account.
+     *
+     * @param index The index of the cell
+     * @return The mask of candidate digits
+     */
+    public long candidates(int index) {
+        return ~(used(index) | eliminated[index]) & allDigits;
+    }
+
+    /**
+     * Gets the digits already placed within a unit.
+     *
+     * @param unit The unit, indexed the same way as {@link Geometry#unit(int)}
+     * @return The mask of used digits
+     */
+    public long usedInUnit(int unit) {
+        return units[unit];
+    }
+
+    /**
+     * Places a digit into an empty cell. The caller is responsible for checking {@link #canPlace(int, int)} first.
+     *
+     * @param index The index of the cell
+     * @param digit The digit to place
+     */
+    public void place(int index, int digit) {
+        board.set(index, digit);
+        addToUnits(index, bit(digit));
+        empty--;
+        push(index, 0);
+    }
+
+    /**
+     * Removes candidates from a single cell.
+     *
+     * @param index The index of the cell
+     * @param mask  The candidates to remove
+     * @return True if at least one candidate was removed otherwise False
+     */
+    public boolean eliminate(int index, long mask) {
+        long removed = mask & candidates(index);
+        if (removed == 0) {
+            return false;
+        }
+        eliminated[index] |= removed;
+        push(index, removed);
+        return true;
+    }
+
+    /**
+     * @return A position on the trail that can later be passed to {@link #undo(int)}
+     */
+    public int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Reverts every placement and elimination made since the given mark, newest first.
+     *
+     * @param mark The mark to return to
+     */
+    public void undo(int mark) {
+        while (trailSize > mark) {
+            int index = trailCells[--trailSize];
+            long mask = trailMasks[trailSize];
+            if (mask == 0) {
+                removeFromUnits(index, bit(board.get(index)));
+                board.set(index, 0);
+                empty++;
+            } else {
+                eliminated[index] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * @return True if every cell is filled otherwise False
+     */
+    public boolean isFinished() {
+        return empty == 0;
+    }
+
+    /**
+     * @return False if the givens of the board already clash with each other
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public int getEmpty() {
+        return empty;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return The mask with a bit set for every digit of the board
+     */
+    public long getAllDigits() {
+        return allDigits;
+    }
+
+    /**
+     * Creates an independent copy of this state, including a copy of its board. The copy starts with an empty trail.
+     *
+     * @return The copy
+     */
+    public CandidateState copy() {
+        return new CandidateState(this);
+    }
+
+    /**
+     * Overwrites this state and its board with another state of the same shape, reusing the arrays of this state
+     * instead of allocating a {@link #copy()}. The trail is emptied.
+     *
+     * @param other The state to copy from
+     */
+    public void copyFrom(CandidateState other) {
+        board.copyFrom(other.board);
+        System.arraycopy(other.units, 0, units, 0, units.length);
+        System.arraycopy(other.eliminated, 0, eliminated, 0, eliminated.length);
+        this.empty = other.empty;
+        this.consistent = other.consistent;
+        this.trailSize = 0;
+    }
+
+    private void push(int index, long mask) {
+        if (trailSize == trailCells.length) {
+            trailCells = Arrays.copyOf(trailCells, trailSize * 2);
+            trailMasks = Arrays.copyOf(trailMasks, trailSize * 2);
+        }
+        trailCells[trailSize] = index;
+        trailMasks[trailSize++] = mask;
+    }
+
+    private long used(int index) {
+        return units[rowOf[index]] | units[columnUnits + columnOf[index]] | units[boxUnits + boxOf[index]];
+    }
+
+    private void addToUnits(int index, long bit) {
+        units[rowOf[index]] |= bit;
+        units[columnUnits + columnOf[index]] |= bit;
+        units[boxUnits + boxOf[index]] |= bit;
+    }
+
+    private void removeFromUnits(int index, long bit) {
+        units[rowOf[index]] &= ~bit;
+        units[columnUnits + columnOf[index]] &= ~bit;
+        units[boxUnits + boxOf[index]] &= ~bit;
+    }
+}
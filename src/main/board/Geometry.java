@@ -0,0 +1,222 @@
+package main.board;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shape of a board built from boxes of a given width and height, such as 3x3 boxes for the classic 9x9 board, 2x3
+ * boxes for 6x6 or 4x4 boxes for 16x16. A board always holds as many boxes as it has rows, so a board with boxes of
+ * width w and height h is w * h cells wide and uses that many symbols.
+ * <p>
+ * Besides its dimensions a geometry holds the lookup tables describing its units: the row, column and box every cell
+ * belongs to and the cells that make up each unit. Units are numbered rows first, then columns, then boxes. Geometries
+ * are immutable and shared, so the tables are built only once per shape.
+ *
+ * @author Matthew Lillie
+ */
+public final class Geometry {
+
+    /**
+     * Largest number of symbols supported, one bit for each within a long candidate mask.
+     */
+    public static final int MAX_SIZE = Long.SIZE;
+
+    private static final ConcurrentMap<Integer, Geometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+    /**
+     * The classic 9x9 board with 3x3 boxes.
+     */
+    public static final Geometry CLASSIC = of(3, 3);
+
+    private final int boxWidth;
+    private final int boxHeight;
+    private final int size;
+    private final int cells;
+
+    // Unit membership by cell index, read directly by CandidateState on its hot path
+    final int[] rowOf;
+    final int[] columnOf;
+    final int[] boxOf;
+
+    // Cell indices by unit
+    private final int[][] rows;
+    private final int[][] columns;
+    private final int[][] boxes;
+    private final int[][] units;
+
+    private Geometry(int boxWidth, int boxHeight) {
+        this.boxWidth = boxWidth;
+        this.boxHeight = boxHeight;
+        this.size = boxWidth * boxHeight;
+        this.cells = size * size;
+        this.rowOf = new int[cells];
+        this.columnOf = new int[cells];
+        this.boxOf = new int[cells];
+        this.rows = new int[size][size];
+        this.columns = new int[size][size];
+        this.boxes = new int[size][size];
+        this.units = new int[size * 3][];
+
+        int[] boxFill = new int[size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int index = index(x, y);
+                int box = (y / boxHeight) * (size / boxWidth) + x / boxWidth;
+                rowOf[index] = y;
+                columnOf[index] = x;
+                boxOf[index] = box;
+                rows[y][x] = index;
+                columns[x][y] = index;
+                boxes[box][boxFill[box]++] = index;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            units[i] = rows[i];
+            units[size + i] = columns[i];
+            units[size * 2 + i] = boxes[i];
+        }
+    }
+
+    /**
+     * Gets the geometry of boards built from boxes of a given size.
+     *
+     * @param boxWidth  The width of a box
+     * @param boxHeight The height of a box
+     * @return The geometry
+     * @throws IllegalArgumentException If the boxes would hold no cells or more than {@link #MAX_SIZE}
+     */
+    public static Geometry of(int boxWidth, int boxHeight) {
+        if (boxWidth < 1 || boxHeight < 1 || boxWidth * boxHeight > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported box size " + boxWidth + "x" + boxHeight);
+        }
+        return GEOMETRIES.computeIfAbsent(boxWidth * (MAX_SIZE + 1) + boxHeight, key -> new Geometry(boxWidth, boxHeight));
+    }
+
+    /**
+     * Gets the geometry of a board with a given number of rows. Square boxes are used where possible, otherwise the
+     * boxes are as close to square as possible and wider than they are tall, such as 3x2 for a 6x6 board.
+     *
+     * @param size The number of rows, columns and symbols
+     * @return The geometry
+     * @throws IllegalArgumentException If the size is prime or too large, since no proper boxes exist
+     */
+    public static Geometry ofSize(int size) {
+        for (int boxHeight = (int) Math.sqrt(size); boxHeight > 1; boxHeight--) {
+            if (size % boxHeight == 0) {
+                return of(size / boxHeight, boxHeight);
+            }
+        }
+        throw new IllegalArgumentException("No boxes fit a board of size " + size);
+    }
+
+    /**
+     * Gets the geometry of a board with a given number of cells.
+     *
+     * @param cells The total number of cells
+     * @return The geometry
+     * @throws IllegalArgumentException If the number of cells does not describe a valid board
+     * @see #ofSize(int)
+     */
+    public static Geometry ofCells(int cells) {
+        int size = (int) Math.round(Math.sqrt(cells));
+        if (size * size != cells) {
+            throw new IllegalArgumentException(cells + " cells do not form a square board");
+        }
+        return ofSize(size);
+    }
+
+    /**
+     * Gets the index of a cell within the flat cell array.
+     *
+     * @param x The column
+     * @param y The row
+     * @return The index of the cell
+     */
+    public int index(int x, int y) {
+        return y * size + x;
+    }
+
+    /**
+     * @return The mask with a bit set for every symbol
+     */
+    public long getAllDigits() {
+        return size == Long.SIZE ? -1L : (1L << size) - 1;
+    }
+
+    public int getBoxWidth() {
+        return boxWidth;
+    }
+
+    public int getBoxHeight() {
+        return boxHeight;
+    }
+
+    /**
+     * @return The number of rows, columns, boxes and symbols
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The total number of cells
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    public int rowOf(int index) {
+        return rowOf[index];
+    }
+
+    public int columnOf(int index) {
+        return columnOf[index];
+    }
+
+    public int boxOf(int index) {
+        return boxOf[index];
+    }
+
+    /**
+     * Gets the cells of a unit. The returned array is shared and must not be modified.
+     *
+     * @param unit The unit, rows first, then columns, then boxes
+     * @return The indices of the cells
+     */
+    public int[] unit(int unit) {
+        return units[unit];
+    }
+
+    /**
+     * @return The cells of a row, shared and not to be modified
+     */
+    public int[] row(int row) {
+        return rows[row];
+    }
+
+    /**
+     * @return The cells of a column, shared and not to be modified
+     */
+    public int[] column(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @return The cells of a box, shared and not to be modified
+     */
+    public int[] box(int box) {
+        return boxes[box];
+    }
+
+    /**
+     * @return The number of units, three for every row
+     */
+    public int getUnits() {
+        return units.length;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " (" + boxWidth + "x" + boxHeight + " boxes)";
+    }
+}
@@ -0,0 +1,153 @@
+package main.cache;
+
+import main.board.Board;
+import main.generator.Difficulty;
+import main.solvers.DancingLinksSolver;
+import main.solvers.SearchContext;
+import main.solvers.SolutionCounter;
+import main.solvers.Solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Solver that remembers the solutions found by another solver. A puzzle is looked up exactly as given first, which
+ * costs no more than hashing it. Only if that misses is it brought into its {@link CanonicalForm}, so a puzzle is
+ * recognized again even with its digits relabeled, its rows, columns, bands or stacks permuted or its grid
+ * transposed, and the cached solution is mapped back through the inverse transformation. Puzzles with fewer givens
+ * than a fifth of the cells are not canonicalized: so many transformations tie on them that finding the canonical
+ * form costs far more than the search, which is easy on such open boards.
+ * <p>
+ * Solutions are looked up in an in-memory {@link SolutionCache} first and then in a persistent {@link SolutionStore},
+ * either of which may be left out, before falling back to the solver. Only solved puzzles are kept. A single instance
+ * can be shared by any number of threads as long as the delegate can.
+ *
+ * @author Matthew Lillie
+ */
+public class CachingSolver implements Solver {
+
+    /**
+     * Share of the cells that must hold givens for a puzzle to be canonicalized, as one in this many.
+     */
+    private static final int MIN_GIVENS_DIVISOR = 5;
+
+    private final Solver delegate;
+    private final SolutionCache cache;
+    private final SolutionStore store;
+    private final SolutionCounter counter = new DancingLinksSolver();
+
+    /**
+     * Creates a caching solver in front of a solver with a cache of its own.
+     *
+     * @param delegate The solver used on a cache miss
+     * @param capacity The most solutions kept at once
+     */
+    public CachingSolver(Solver delegate, int capacity) {
+        this(delegate, new SolutionCache(capacity));
+    }
+
+    /**
+     * Creates a caching solver in front of a solver.
+     *
+     * @param delegate The solver used on a cache miss
+     * @param cache    The cache, which may be shared with other caching solvers
+     */
+    public CachingSolver(Solver delegate, SolutionCache cache) {
+        this(delegate, cache, null);
+    }
+
+    /**
+     * Creates a caching solver in front of a solver that also keeps its solutions on disk.
+     *
+     * @param delegate The solver used when a puzzle is found nowhere
+     * @param cache    The in-memory cache or null for none
+     * @param store    The persistent store or null for none
+     */
+    public CachingSolver(Solver delegate, SolutionCache cache, SolutionStore store) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.store = store;
+    }
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        Board exact = cache != null ? cache.find(board) : null;
+        if (exact != null) {
+            board.copyFrom(exact);
+            return true;
+        }
+
+        CanonicalForm form = isCanonicalized(board) ? CanonicalForm.of(board) : null;
+        Board puzzle = form != null ? form.getBoard() : board.copy();
+        Board solution = cache != null ? cache.get(puzzle) : null;
+        if (solution == null && store != null) {
+            StoredSolution stored = read(puzzle);
+            if (stored != null) {
+                solution = stored.getSolution();
+                if (cache != null) {
+                    cache.put(puzzle, solution);
+                }
+            }
+        }
+        if (solution == null) {
+            solution = puzzle.copy();
+            if (!delegate.solve(solution, context)) {
+                return false;
+            }
+            if (cache != null) {
+                cache.put(puzzle, solution);
+            }
+            if (store != null) {
+                write(puzzle, solution);
+            }
+        }
+        if (form != null) {
+            solution = form.fromCanonical(solution);
+            // Kept as given too, so the same puzzle is found again without canonicalizing it
+            if (cache != null) {
+                cache.put(board.copy(), solution);
+            }
+        }
+        board.copyFrom(solution);
+        return true;
+    }
+
+    private static boolean isCanonicalized(Board board) {
+        int cells = board.getGeometry().getCells();
+        return (cells - board.countEmpty()) * MIN_GIVENS_DIVISOR >= cells;
+    }
+
+    private StoredSolution read(Board puzzle) {
+        try {
+            return store.get(puzzle);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores a solution along with the difficulty of its puzzle and whether it is unique, which is only searched for
+     * when the propagation behind the difficulty does not already settle it.
+     */
+    private void write(Board puzzle, Board solution) {
+        Difficulty difficulty = Difficulty.of(puzzle);
+        boolean unique = difficulty != Difficulty.HARD || counter.isUnique(puzzle);
+        try {
+            store.put(puzzle, new StoredSolution(solution, unique, difficulty));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Solver getDelegate() {
+        return delegate;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    public SolutionStore getStore() {
+        return store;
+    }
+}
@@ -0,0 +1,435 @@
+package main.cache;
+
+import main.board.Board;
+import main.board.Geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Canonical representative of a puzzle among all of its equivalent puzzles: those obtained by relabeling the digits,
+ * permuting the rows within a band or the columns within a stack, permuting the bands or the stacks and, for square
+ * boxes, transposing the grid. Equivalent puzzles share their solutions up to the same transformation, so solving the
+ * canonical puzzle once solves all of them.
+ * <p>
+ * The canonical puzzle is the lexicographically smallest grid, read row by row with blanks first, after relabeling
+ * the digits in order of their first appearance. It is built one cell at a time: the first row fixes the order of
+ * the columns cell by cell and every later row picks the source row that continues the grid smallest, keeping every
+ * transformation that ties. Ties are enumerated up to a bound, beyond which the first transformations found are kept.
+ * The result is then no longer guaranteed to be the same for every equivalent puzzle, which only costs cache hits
+ * since the canonical puzzle is always equivalent to the puzzle it was computed from.
+ *
+ * @author Matthew Lillie
+ */
+public final class CanonicalForm {
+
+    /**
+     * Most tied transformations followed at once.
+     */
+    private static final int MAX_CANDIDATES = 256;
+
+    private final Geometry geometry;
+    private final Board board;
+    private final boolean transposed;
+    // Source row and column of every canonical row and column, in the transposed grid if transposed
+    private final int[] rows;
+    private final int[] columns;
+    // Canonical label of every source digit and the source digit of every label, both indexed from 1
+    private final int[] labels;
+    private final int[] digits;
+
+    private CanonicalForm(Board puzzle, Candidate best) {
+        this.geometry = puzzle.getGeometry();
+        this.transposed = best.transposed;
+        this.rows = best.rows;
+        this.columns = best.columns;
+        this.labels = best.labels;
+        // Digits that are not part of the puzzle get the remaining labels in order
+        int size = geometry.getSize();
+        int next = best.nextLabel;
+        for (int digit = 1; digit <= size; digit++) {
+            if (labels[digit] == 0) {
+                labels[digit] = next++;
+            }
+        }
+        this.digits = new int[size + 1];
+        for (int digit = 1; digit <= size; digit++) {
+            digits[labels[digit]] = digit;
+        }
+        this.board = toCanonical(puzzle);
+    }
+
+    /**
+     * Computes the canonical form of a puzzle.
+     *
+     * @param puzzle The puzzle, left untouched
+     * @return The canonical form together with the transformation leading to it
+     */
+    public static CanonicalForm of(Board puzzle) {
+        int size = puzzle.getGeometry().getSize();
+        List<Candidate> candidates = firstRow(puzzle);
+        for (int row = 1; row < size; row++) {
+            RowBeam beam = new RowBeam(puzzle, row);
+            for (Candidate candidate : candidates) {
+                beam.extend(candidate);
+            }
+            candidates = beam.next;
+        }
+        return new CanonicalForm(puzzle, candidates.get(0));
+    }
+
+    /**
+     * @return The canonical puzzle
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Applies the transformation of this form to a board of the same shape, such as a solution of the original
+     * puzzle.
+     *
+     * @param original The board to transform
+     * @return The transformed board
+     */
+    public Board toCanonical(Board original) {
+        int size = geometry.getSize();
+        Board result = new Board(geometry);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = value(original, transposed, rows[i], columns[j]);
+                result.set(i * size + j, value == 0 ? 0 : labels[value]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies the inverse transformation of this form to a board, such as a solution of the canonical puzzle.
+     *
+     * @param canonical The board to transform back
+     * @return The board in the coordinates and digits of the original puzzle
+     */
+    public Board fromCanonical(Board canonical) {
+        int size = geometry.getSize();
+        Board result = new Board(geometry);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = canonical.get(i * size + j);
+                int row = transposed ? columns[j] : rows[i];
+                int column = transposed ? rows[i] : columns[j];
+                result.set(row * size + column, value == 0 ? 0 : digits[value]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Picks the rows that make the smallest first row, which only depends on how many clues each stack holds in
+     * that row: the stacks come in increasing number of clues, each with its blanks first. Stacks holding as many
+     * clues are ordered every possible way, and so are the clues of every stack since each of them takes a new label.
+     */
+    private static List<Candidate> firstRow(Board puzzle) {
+        Geometry geometry = puzzle.getGeometry();
+        int size = geometry.getSize();
+        int width = geometry.getBoxWidth();
+        int stacks = size / width;
+
+        List<Candidate> result = new ArrayList<>();
+        int[] best = null;
+        for (int t = 0; t < (width == geometry.getBoxHeight() ? 2 : 1); t++) {
+            boolean transposed = t == 1;
+            for (int row = 0; row < size; row++) {
+                int[] counts = new int[stacks];
+                for (int column = 0; column < size; column++) {
+                    if (value(puzzle, transposed, row, column) != 0) {
+                        counts[column / width]++;
+                    }
+                }
+                Integer[] order = new Integer[stacks];
+                for (int stack = 0; stack < stacks; stack++) {
+                    order[stack] = stack;
+                }
+                Arrays.sort(order, (a, b) -> Integer.compare(counts[a], counts[b]));
+                int[] sorted = new int[stacks];
+                for (int slot = 0; slot < stacks; slot++) {
+                    sorted[slot] = counts[order[slot]];
+                }
+                int compare = best == null ? -1 : Arrays.compare(sorted, best);
+                if (compare > 0) {
+                    continue;
+                }
+                if (compare < 0) {
+                    best = sorted;
+                    result.clear();
+                }
+                int[] stackOrder = new int[stacks];
+                for (int slot = 0; slot < stacks; slot++) {
+                    stackOrder[slot] = order[slot];
+                }
+                int finalRow = row;
+                permute(stackOrder, runs(sorted), () -> {
+                    Candidate candidate = new Candidate(size, transposed);
+                    candidate.rows[0] = finalRow;
+                    candidate.usedRows = 1L << finalRow;
+                    List<Integer> clues = new ArrayList<>();
+                    int position = 0;
+                    for (int slot = 0; slot < stacks; slot++) {
+                        int start = position;
+                        for (int column = stackOrder[slot] * width; column < (stackOrder[slot] + 1) * width; column++) {
+                            if (value(puzzle, transposed, finalRow, column) == 0) {
+                                if (position > start) {
+                                    candidate.tied[position - 1] = true;
+                                }
+                                candidate.columns[position++] = column;
+                            }
+                        }
+                        clues.add(position);
+                        for (int column = stackOrder[slot] * width; column < (stackOrder[slot] + 1) * width; column++) {
+                            if (value(puzzle, transposed, finalRow, column) != 0) {
+                                candidate.columns[position++] = column;
+                            }
+                        }
+                        clues.add(position);
+                    }
+                    int[] clueRuns = clues.stream().mapToInt(Integer::intValue).toArray();
+                    return permute(candidate.columns, clueRuns, () -> {
+                        Candidate copy = candidate.copy();
+                        copy.assignRow(puzzle, finalRow);
+                        result.add(copy);
+                        return result.size() < MAX_CANDIDATES;
+                    });
+                });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the runs of equal values of a sorted array, as start and end pairs.
+     */
+    private static int[] runs(int[] sorted) {
+        List<Integer> runs = new ArrayList<>();
+        for (int start = 0, end; start < sorted.length; start = end) {
+            end = start + 1;
+            while (end < sorted.length && sorted[end] == sorted[start]) {
+                end++;
+            }
+            runs.add(start);
+            runs.add(end);
+        }
+        return runs.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Calls an action once for every order of some runs of an array, permuting the runs in place and restoring them
+     * afterwards.
+     *
+     * @param array  The array to permute
+     * @param runs   Start and end pairs of the runs to permute independently of each other
+     * @param action The action, returning false to stop
+     * @return False if the action stopped the enumeration
+     */
+    private static boolean permute(int[] array, int[] runs, BooleanSupplier action) {
+        return permute(array, runs, 0, runs.length == 0 ? 0 : runs[0], action);
+    }
+
+    private static boolean permute(int[] array, int[] runs, int run, int position, BooleanSupplier action) {
+        if (run * 2 == runs.length) {
+            return action.getAsBoolean();
+        }
+        int end = runs[run * 2 + 1];
+        if (position >= end - 1) {
+            int next = run + 1;
+            return permute(array, runs, next, next * 2 < runs.length ? runs[next * 2] : 0, action);
+        }
+        for (int i = position; i < end; i++) {
+            swap(array, position, i);
+            boolean going = permute(array, runs, run, position + 1, action);
+            swap(array, position, i);
+            if (!going) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    /**
+     * Determines if a row can come next: it has to be unused and either continue the current band or start a band
+     * that is still completely unused.
+     */
+    private static boolean allowed(long used, int row, int height, int band) {
+        if ((used & (1L << row)) != 0) {
+            return false;
+        }
+        if (band >= 0) {
+            return row / height == band;
+        }
+        long bandMask = (height == Long.SIZE ? -1L : (1L << height) - 1) << (row / height * height);
+        return (used & bandMask) == 0;
+    }
+
+    private static int value(Board board, boolean transposed, int row, int column) {
+        int size = board.getGeometry().getSize();
+        return transposed ? board.get(column * size + row) : board.get(row * size + column);
+    }
+
+    /**
+     * The candidates that continue the grid smallest at one row. Columns that are still interchangeable are sorted
+     * to make the row smallest rather than tried in every order; only the columns whose digits are new to the
+     * candidate still have to be tried every way, as the order hands out their labels.
+     */
+    private static final class RowBeam {
+
+        // Sorts after every label while a row is being ordered
+        private static final int NEW = Integer.MAX_VALUE;
+
+        private final Board puzzle;
+        private final int position;
+        private final int size;
+        private final int height;
+        private final int[] line;
+        private final int[] keys;
+        private final int[] columns;
+        private final List<Candidate> next = new ArrayList<>();
+        private int[] best;
+
+        RowBeam(Board puzzle, int position) {
+            this.puzzle = puzzle;
+            this.position = position;
+            this.size = puzzle.getGeometry().getSize();
+            this.height = puzzle.getGeometry().getBoxHeight();
+            this.line = new int[size];
+            this.keys = new int[size];
+            this.columns = new int[size];
+        }
+
+        /**
+         * Tries every source row allowed next for a candidate, keeping those that tie with the best.
+         */
+        void extend(Candidate candidate) {
+            int band = position % height == 0 ? -1 : candidate.rows[position - 1] / height;
+            for (int row = 0; row < size; row++) {
+                if (allowed(candidate.usedRows, row, height, band)) {
+                    extend(candidate, row);
+                }
+            }
+        }
+
+        private void extend(Candidate candidate, int row) {
+            // Sort every run of interchangeable columns by the label its cell would get
+            for (int start = 0, end; start < size; start = end) {
+                end = start + 1;
+                while (end < size && candidate.tied[end - 1]) {
+                    end++;
+                }
+                for (int j = start; j < end; j++) {
+                    int column = candidate.columns[j];
+                    int value = value(puzzle, candidate.transposed, row, column);
+                    int key = value == 0 ? 0 : candidate.labels[value] != 0 ? candidate.labels[value] : NEW;
+                    int k = j;
+                    while (k > start && keys[k - 1] > key) {
+                        keys[k] = keys[k - 1];
+                        columns[k] = columns[k - 1];
+                        k--;
+                    }
+                    keys[k] = key;
+                    columns[k] = column;
+                }
+            }
+            // A row holds every digit at most once, so each new digit simply takes the next label
+            int nextLabel = candidate.nextLabel;
+            for (int j = 0; j < size; j++) {
+                line[j] = keys[j] == NEW ? nextLabel++ : keys[j];
+            }
+            int order = best == null ? -1 : Arrays.compare(line, best);
+            if (order > 0 || order == 0 && next.size() >= MAX_CANDIDATES) {
+                return;
+            }
+            if (order < 0) {
+                best = line.clone();
+                next.clear();
+            }
+
+            Candidate extended = candidate.copy();
+            extended.rows[position] = row;
+            extended.usedRows |= 1L << row;
+            System.arraycopy(columns, 0, extended.columns, 0, size);
+            List<Integer> fresh = new ArrayList<>();
+            for (int j = 0; j < size - 1; j++) {
+                boolean tied = candidate.tied[j] && keys[j] == keys[j + 1];
+                extended.tied[j] = tied && keys[j] == 0;
+                if (tied && keys[j] == NEW) {
+                    if (!fresh.isEmpty() && fresh.get(fresh.size() - 1) == j + 1) {
+                        fresh.set(fresh.size() - 1, j + 2);
+                    } else {
+                        fresh.add(j);
+                        fresh.add(j + 2);
+                    }
+                }
+            }
+            int[] freshRuns = fresh.stream().mapToInt(Integer::intValue).toArray();
+            permute(extended.columns, freshRuns, () -> {
+                Candidate copy = freshRuns.length == 0 ? extended : extended.copy();
+                copy.assignRow(puzzle, row);
+                next.add(copy);
+                return next.size() < MAX_CANDIDATES;
+            });
+        }
+    }
+
+    /**
+     * A partial transformation: the rows chosen so far, an order of the columns and the labels handed out to the
+     * digits seen. Runs of tied columns have been blank in every row so far and can still come in any order.
+     */
+    private static final class Candidate {
+
+        private final boolean transposed;
+        private final int[] rows;
+        private final int[] columns;
+        // Whether each column is interchangeable with the next one
+        private final boolean[] tied;
+        private final int[] labels;
+        private int nextLabel = 1;
+        private long usedRows;
+
+        Candidate(int size, boolean transposed) {
+            this(transposed, new int[size], new int[size], new boolean[size], new int[size + 1]);
+        }
+
+        private Candidate(boolean transposed, int[] rows, int[] columns, boolean[] tied, int[] labels) {
+            this.transposed = transposed;
+            this.rows = rows;
+            this.columns = columns;
+            this.tied = tied;
+            this.labels = labels;
+        }
+
+        /**
+         * Labels the digits of a source row new to this candidate in the order of the columns.
+         */
+        void assignRow(Board puzzle, int row) {
+            for (int column : columns) {
+                int value = value(puzzle, transposed, row, column);
+                if (value != 0 && labels[value] == 0) {
+                    labels[value] = nextLabel++;
+                }
+            }
+        }
+
+        Candidate copy() {
+            Candidate copy = new Candidate(transposed, rows.clone(), columns.clone(), tied.clone(), labels.clone());
+            copy.nextLabel = nextLabel;
+            copy.usedRows = usedRows;
+            return copy;
+        }
+    }
+}
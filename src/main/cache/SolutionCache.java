@@ -0,0 +1,178 @@
+package main.cache;
+
+import main.board.Board;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of solutions keyed by puzzle, canonical or exactly as given, evicting the least recently used puzzle
+ * once full. The cache is split into segments, each an access ordered map behind its own lock, so that the batch
+ * workers rarely wait for each other. Puzzles and solutions are stored as given and must not be changed afterwards.
+ *
+ * @author Matthew Lillie
+ */
+public class SolutionCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The most solutions kept at once
+     * @throws IllegalArgumentException If the capacity is not positive
+     */
+    public SolutionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // Never more segments than entries, and the entries spread as evenly as possible over them
+        int count = Math.min(SEGMENTS, capacity);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Looks up the solution of a canonical puzzle.
+     *
+     * @param puzzle The canonical puzzle
+     * @return The canonical solution or null if it is not cached
+     */
+    public Board get(Board puzzle) {
+        Board solution = segmentFor(puzzle).get(puzzle);
+        if (solution == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return solution;
+    }
+
+    /**
+     * Looks up the solution of a puzzle like {@link #get(Board)}, but without counting a miss, for a lookup that is
+     * followed by another one when it fails.
+     *
+     * @param puzzle The puzzle
+     * @return The solution or null if it is not cached
+     */
+    public Board find(Board puzzle) {
+        Board solution = segmentFor(puzzle).get(puzzle);
+        if (solution != null) {
+            hits.increment();
+        }
+        return solution;
+    }
+
+    /**
+     * Caches the solution of a canonical puzzle, evicting the least recently used puzzle of its segment if full.
+     *
+     * @param puzzle   The canonical puzzle
+     * @param solution The canonical solution
+     */
+    public void put(Board puzzle, Board solution) {
+        segmentFor(puzzle).put(puzzle, solution);
+    }
+
+    private Segment segmentFor(Board puzzle) {
+        int hash = puzzle.hashCode();
+        hash ^= hash >>> 16;
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    /**
+     * @return The number of solutions currently cached
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The share of lookups that found a solution, between 0 and 1
+     */
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    /**
+     * Removes every solution and resets the statistics.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + capacity + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions="
+                + getEvictions() + ", hitRate=" + String.format("%.1f", getHitRate() * 100) + "%";
+    }
+
+    private final class Segment {
+
+        private final Map<Board, Board> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<Board, Board>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Board, Board> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Board get(Board puzzle) {
+            return entries.get(puzzle);
+        }
+
+        synchronized void put(Board puzzle, Board solution) {
+            entries.put(puzzle, solution);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+}
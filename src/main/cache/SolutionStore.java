@@ -0,0 +1,349 @@
+package main.cache;
+
+import main.board.Board;
+import main.board.Geometry;
+import main.generator.Difficulty;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent store of solved puzzles kept in a directory, so that solutions survive restarts. Every solution is
+ * appended to a data file as a small record holding the packed puzzle and solution, see {@link Board#pack}, and the
+ * records are found through a hash index that is memory-mapped, so opening a store and looking up a puzzle never read
+ * more than the one record asked for.
+ * <p>
+ * The index is only derived from the data file: it remembers how much of the data file it covers and is brought up
+ * to date or rebuilt on open when it falls behind, for instance after a crash. A record that was only partially
+ * written is dropped. A new index, when the store is created or the index grows, is built in a file of its own that
+ * replaces the old one, which is never truncated while it may still be mapped. Puzzles are compared by their exact
+ * cells, so {@link CachingSolver} stores canonical puzzles to find equivalent puzzles as well. All methods are
+ * synchronized.
+ *
+ * @author Matthew Lillie
+ */
+public class SolutionStore implements Closeable {
+
+    /**
+     * Name of the append-only data file within the store directory.
+     */
+    public static final String DATA_FILE = "solutions.dat";
+
+    /**
+     * Name of the index file within the store directory.
+     */
+    public static final String INDEX_FILE = "solutions.idx";
+
+    // Constants
+    private static final int DATA_MAGIC = 0x53444B53;
+    private static final int INDEX_MAGIC = 0x53444B49;
+    private static final int VERSION = 1;
+    private static final int DATA_HEADER = 8;
+    // Magic, version, slot count, entry count and the length of the data file covered
+    private static final int INDEX_HEADER = 24;
+    // Hash of the puzzle and offset of its record, 0 for an empty slot
+    private static final int SLOT = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    // Box width, box height and flags
+    private static final int RECORD_HEADER = 3;
+    private static final int UNIQUE = 1;
+
+    private final FileChannel data;
+    private final Path indexPath;
+    private FileChannel indexFile;
+    private MappedByteBuffer index;
+    private int slots;
+    private int entries;
+    private long dataLength;
+
+    private SolutionStore(FileChannel data, Path indexPath, FileChannel indexFile) {
+        this.data = data;
+        this.indexPath = indexPath;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the store kept in a directory, creating it if needed.
+     *
+     * @param directory The directory of the store
+     * @return The store
+     * @throws IOException If the store cannot be opened or its data file is not a store
+     */
+    public static SolutionStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Path indexPath = directory.resolve(INDEX_FILE);
+        FileChannel index = null;
+        SolutionStore store = null;
+        try {
+            index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            store = new SolutionStore(data, indexPath, index);
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            // The store may have replaced the index file it was opened with
+            if (store != null) {
+                store.indexFile.close();
+            } else if (index != null) {
+                index.close();
+            }
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        if (data.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER).putInt(DATA_MAGIC).putInt(VERSION).flip();
+            data.write(header, 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+            data.read(header, 0);
+            if (header.flip().remaining() < DATA_HEADER || header.getInt() != DATA_MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a solution store: " + DATA_FILE);
+            }
+        }
+
+        long size = indexFile.size();
+        index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INDEX_HEADER));
+        slots = size >= INDEX_HEADER ? index.getInt(8) : 0;
+        boolean valid = size >= INDEX_HEADER && index.getInt(0) == INDEX_MAGIC && index.getInt(4) == VERSION
+                && Integer.bitCount(slots) == 1 && size == INDEX_HEADER + (long) slots * SLOT
+                && index.getLong(16) >= DATA_HEADER && index.getLong(16) <= data.size();
+        if (valid) {
+            entries = index.getInt(12);
+            dataLength = index.getLong(16);
+        } else {
+            createIndex(INITIAL_SLOTS);
+            dataLength = DATA_HEADER;
+        }
+        catchUp();
+    }
+
+    /**
+     * Indexes the records appended after the part of the data file the index covers, dropping a trailing record that
+     * was only partially written.
+     */
+    private void catchUp() throws IOException {
+        long size = data.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (dataLength < size) {
+            header.clear();
+            data.read(header, dataLength);
+            Geometry geometry = header.position() == RECORD_HEADER ? geometryOf(header.get(0), header.get(1)) : null;
+            if (geometry == null || dataLength + recordLength(geometry) > size) {
+                break;
+            }
+            ByteBuffer puzzle = ByteBuffer.allocate(Board.packedLength(geometry));
+            data.read(puzzle, dataLength + RECORD_HEADER);
+            insert(hash(geometry, puzzle.flip()), dataLength);
+            dataLength += recordLength(geometry);
+        }
+        if (dataLength < size) {
+            data.truncate(dataLength);
+        }
+        index.putLong(16, dataLength);
+    }
+
+    private static Geometry geometryOf(int boxWidth, int boxHeight) {
+        try {
+            return Geometry.of(boxWidth, boxHeight);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int recordLength(Geometry geometry) {
+        return RECORD_HEADER + 2 * Board.packedLength(geometry);
+    }
+
+    /**
+     * Looks up the solution of a puzzle.
+     *
+     * @param puzzle The puzzle
+     * @return The stored solution or null if the puzzle is not in the store
+     * @throws IOException If reading the data file fails
+     */
+    public synchronized StoredSolution get(Board puzzle) throws IOException {
+        Geometry geometry = puzzle.getGeometry();
+        int length = Board.packedLength(geometry);
+        ByteBuffer packed = ByteBuffer.allocate(length);
+        puzzle.pack(packed);
+        long hash = hash(geometry, packed.flip());
+
+        ByteBuffer record = ByteBuffer.allocate(recordLength(geometry));
+        for (int slot = slotOf(hash); ; slot = (slot + 1) & (slots - 1)) {
+            long offset = index.getLong(slotPosition(slot) + 8);
+            if (offset == 0) {
+                return null;
+            }
+            if (index.getLong(slotPosition(slot)) != hash) {
+                continue;
+            }
+            record.clear();
+            data.read(record, offset);
+            record.flip();
+            if (record.get() != geometry.getBoxWidth() || record.get() != geometry.getBoxHeight()) {
+                continue;
+            }
+            int flags = record.get();
+            if (record.slice().limit(length).equals(packed)) {
+                record.position(RECORD_HEADER + length);
+                Board solution = Board.unpack(record, geometry);
+                return new StoredSolution(solution, (flags & UNIQUE) != 0, Difficulty.values()[flags >>> 1]);
+            }
+        }
+    }
+
+    /**
+     * Adds the solution of a puzzle to the store, unless the puzzle is already in it.
+     *
+     * @param puzzle   The puzzle
+     * @param solution The solution and what is known about the puzzle
+     * @throws IOException If writing the data file fails
+     */
+    public synchronized void put(Board puzzle, StoredSolution solution) throws IOException {
+        if (get(puzzle) != null) {
+            return;
+        }
+        Geometry geometry = puzzle.getGeometry();
+        ByteBuffer record = ByteBuffer.allocate(recordLength(geometry));
+        record.put((byte) geometry.getBoxWidth()).put((byte) geometry.getBoxHeight());
+        record.put((byte) (solution.getDifficulty().ordinal() << 1 | (solution.isUnique() ? UNIQUE : 0)));
+        puzzle.pack(record);
+        solution.getSolution().pack(record);
+        record.flip();
+        long offset = dataLength;
+        while (record.hasRemaining()) {
+            data.write(record, offset + record.position());
+        }
+
+        record.position(RECORD_HEADER).limit(RECORD_HEADER + Board.packedLength(geometry));
+        insert(hash(geometry, record), offset);
+        dataLength = offset + recordLength(geometry);
+        index.putLong(16, dataLength);
+    }
+
+    private void insert(long hash, long offset) throws IOException {
+        if ((entries + 1) * 2L > slots) {
+            grow();
+        }
+        int slot = slotOf(hash);
+        while (index.getLong(slotPosition(slot) + 8) != 0) {
+            slot = (slot + 1) & (slots - 1);
+        }
+        index.putLong(slotPosition(slot), hash);
+        index.putLong(slotPosition(slot) + 8, offset);
+        index.putInt(12, ++entries);
+    }
+
+    /**
+     * Doubles the number of slots, keeping the index at most half full. The old slots hold their hashes, so the
+     * records do not have to be read again.
+     */
+    private void grow() throws IOException {
+        long[] hashes = new long[entries];
+        long[] offsets = new long[entries];
+        int count = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long offset = index.getLong(slotPosition(slot) + 8);
+            if (offset != 0) {
+                hashes[count] = index.getLong(slotPosition(slot));
+                offsets[count++] = offset;
+            }
+        }
+        createIndex(slots * 2);
+        for (int i = 0; i < count; i++) {
+            insert(hashes[i], offsets[i]);
+        }
+        index.putLong(16, dataLength);
+    }
+
+    /**
+     * Replaces the index by an empty one. It is built in a new file renamed over the old one, since the old mapping
+     * stays valid only as long as its file is not truncated and it cannot be unmapped before it is collected.
+     */
+    private void createIndex(int slotCount) throws IOException {
+        long size = INDEX_HEADER + (long) slotCount * SLOT;
+        Path temporary = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped;
+        try {
+            mapped = file.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            // An index covering nothing is rebuilt on open should the process die before it is filled
+            mapped.putInt(0, INDEX_MAGIC).putInt(4, VERSION).putInt(8, slotCount).putInt(12, 0).putLong(16, 0);
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        indexFile.close();
+        indexFile = file;
+        index = mapped;
+        slots = slotCount;
+        entries = 0;
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ hash >>> 32) & (slots - 1);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER + slot * SLOT;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a packed puzzle and its shape, leaving the buffer untouched.
+     */
+    private static long hash(Geometry geometry, ByteBuffer packed) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ geometry.getBoxWidth()) * 0x100000001b3L;
+        hash = (hash ^ geometry.getBoxHeight()) * 0x100000001b3L;
+        for (int i = packed.position(); i < packed.limit(); i++) {
+            hash = (hash ^ (packed.get(i) & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return The number of solutions in the store
+     */
+    public synchronized int size() {
+        return entries;
+    }
+
+    /**
+     * Forces every solution added so far onto the disk.
+     *
+     * @throws IOException If writing fails
+     */
+    public synchronized void sync() throws IOException {
+        data.force(false);
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            data.close();
+            indexFile.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "solutions=" + entries + ", data=" + dataLength + " bytes, index=" + slots + " slots";
+    }
+}
@@ -0,0 +1,46 @@
+package main.cache;
+
+import main.board.Board;
+import main.generator.Difficulty;
+
+/**
+ * A solution kept by a {@link SolutionStore} together with what is known about its puzzle.
+ *
+ * @author Matthew Lillie
+ */
+public class StoredSolution {
+
+    private final Board solution;
+    private final boolean unique;
+    private final Difficulty difficulty;
+
+    /**
+     * Construct a new stored solution.
+     *
+     * @param solution   The solution
+     * @param unique     Whether the puzzle has no other solution
+     * @param difficulty The difficulty of the puzzle
+     */
+    public StoredSolution(Board solution, boolean unique, Difficulty difficulty) {
+        this.solution = solution;
+        this.unique = unique;
+        this.difficulty = difficulty;
+    }
+
+    public Board getSolution() {
+        return solution;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public String toString() {
+        return solution + " (" + (unique ? "unique" : "not unique") + ", " + difficulty + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package main.generator;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.solvers.PropagationLevel;
+import main.solvers.Propagator;
+
+/**
+ * Coarse difficulty of a puzzle, judged by the weakest propagation level that solves it without guessing.
+ *
+ * @author Matthew Lillie
+ */
+public enum Difficulty {
+
+    /**
+     * Solved by naked and hidden singles alone.
+     */
+    EASY(PropagationLevel.SINGLES),
+
+    /**
+     * Needs box/line reductions or pairs on top of singles.
+     */
+    MEDIUM(PropagationLevel.PAIRS),
+
+    /**
+     * Cannot be solved without guessing.
+     */
+    HARD(null);
+
+    private final PropagationLevel level;
+
+    Difficulty(PropagationLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Rates a puzzle.
+     *
+     * @param puzzle The puzzle to rate, left untouched
+     * @return The difficulty of the puzzle
+     */
+    public static Difficulty of(Board puzzle) {
+        for (Difficulty difficulty : values()) {
+            if (difficulty.solves(puzzle)) {
+                return difficulty;
+            }
+        }
+        return HARD;
+    }
+
+    /**
+     * Determines if the techniques of this difficulty are enough to fill in the whole puzzle. Since every deduction
+     * is sound, a puzzle that is solved this way also has a unique solution.
+     *
+     * @param puzzle The puzzle to check, left untouched
+     * @return True if the puzzle is solved without guessing otherwise False
+     */
+    public boolean solves(Board puzzle) {
+        if (level == null) {
+            return false;
+        }
+        CandidateState state = new CandidateState(puzzle.copy());
+        return state.isConsistent() && new Propagator(level).propagate(state) && state.isFinished();
+    }
+}
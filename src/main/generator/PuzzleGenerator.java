@@ -0,0 +1,263 @@
+package main.generator;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.board.Geometry;
+import main.solvers.DancingLinksSolver;
+import main.solvers.MinimumRemainingValuesHeuristic;
+import main.solvers.PropagationLevel;
+import main.solvers.Propagator;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates Sudoku puzzles that are guaranteed to have a unique solution.
+ * <p>
+ * A full valid grid is built first by filling the independent boxes along the diagonal with random permutations and
+ * completing the rest with a randomized search. Clues are then removed in random order, and each removal is kept
+ * only while the puzzle stays unique. Uniqueness is proven cheaply whenever singles alone still solve the puzzle and
+ * with a bounded dancing links count of 2 otherwise.
+ * <p>
+ * All randomness comes from a seedable {@link SplittableRandom}, so a given seed always yields the same puzzles. A
+ * generator is not thread-safe; {@link #generateAll(int, int, Difficulty)} splits it for parallel bulk generation.
+ *
+ * @author Matthew Lillie
+ */
+public class PuzzleGenerator {
+
+    /**
+     * Number of fresh grids tried before settling for the closest puzzle to the requested target.
+     */
+    private static final int MAX_ATTEMPTS = 50;
+
+    private final Geometry geometry;
+    private final SplittableRandom random;
+    private final DancingLinksSolver counter = new DancingLinksSolver();
+    private final Propagator propagator = new Propagator(PropagationLevel.SINGLES);
+    private final MinimumRemainingValuesHeuristic heuristic = new MinimumRemainingValuesHeuristic();
+
+    /**
+     * Construct a new generator of classic puzzles with a random seed.
+     */
+    public PuzzleGenerator() {
+        this(Geometry.CLASSIC, new SplittableRandom());
+    }
+
+    /**
+     * Construct a new generator of classic puzzles that always produces the same puzzles for the same seed.
+     *
+     * @param seed The seed
+     */
+    public PuzzleGenerator(long seed) {
+        this(Geometry.CLASSIC, seed);
+    }
+
+    /**
+     * Construct a new generator of puzzles of a given shape that always produces the same puzzles for the same seed.
+     *
+     * @param geometry The shape of the puzzles
+     * @param seed     The seed
+     */
+    public PuzzleGenerator(Geometry geometry, long seed) {
+        this(geometry, new SplittableRandom(seed));
+    }
+
+    private PuzzleGenerator(Geometry geometry, SplittableRandom random) {
+        this.geometry = geometry;
+        this.random = random;
+    }
+
+    /**
+     * Generates a random, completely filled, valid grid.
+     *
+     * @return The grid
+     */
+    public Board generateSolution() {
+        Board board = new Board(geometry);
+        int size = geometry.getSize();
+        int boxWidth = geometry.getBoxWidth();
+        int boxHeight = geometry.getBoxHeight();
+        // The diagonal boxes share no unit, so any permutation in each of them can be completed.
+        int diagonal = Math.min(size / boxWidth, size / boxHeight);
+        for (int box = 0; box < diagonal; box++) {
+            int[] digits = shuffledDigits();
+            for (int i = 0; i < size; i++) {
+                board.setValue(box * boxWidth + i % boxWidth, box * boxHeight + i / boxWidth, digits[i]);
+            }
+        }
+        fill(new CandidateState(board));
+        return board;
+    }
+
+    /**
+     * Generates a minimal unique puzzle, one where no clue can be removed without losing uniqueness.
+     *
+     * @return The puzzle
+     */
+    public Board generate() {
+        return generate(0, null);
+    }
+
+    /**
+     * Generates a unique puzzle with at most a given number of clues, or the fewest clues reached if the target
+     * could not be met within a bounded number of attempts.
+     *
+     * @param targetClues The maximum number of clues
+     * @return The puzzle
+     */
+    public Board generate(int targetClues) {
+        return generate(targetClues, null);
+    }
+
+    /**
+     * Generates a unique puzzle of a given difficulty.
+     *
+     * @param difficulty The difficulty of the puzzle
+     * @return The puzzle
+     */
+    public Board generate(Difficulty difficulty) {
+        return generate(0, difficulty);
+    }
+
+    /**
+     * Generates a unique puzzle aiming for both a clue count and a difficulty. If no puzzle meets both targets within
+     * a bounded number of attempts, the best match found is returned, preferring the right difficulty over the clue
+     * count.
+     *
+     * @param targetClues The maximum number of clues or 0 for a minimal puzzle
+     * @param difficulty  The difficulty of the puzzle or null for any difficulty
+     * @return The puzzle
+     */
+    public Board generate(int targetClues, Difficulty difficulty) {
+        Board best = null;
+        int bestScore = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Board puzzle = removeClues(generateSolution(), targetClues, difficulty);
+            int clues = geometry.getCells() - puzzle.countEmpty();
+            boolean rightDifficulty = difficulty == null || Difficulty.of(puzzle) == difficulty;
+            if (rightDifficulty && (targetClues <= 0 || clues <= targetClues)) {
+                return puzzle;
+            }
+            int score = (rightDifficulty ? 0 : geometry.getCells()) + clues;
+            if (score < bestScore) {
+                best = puzzle;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Generates puzzles in parallel across all cores. Every puzzle gets its own generator split off from this one,
+     * so the result is the same for the same seed regardless of how the work is scheduled.
+     *
+     * @param count       The number of puzzles to generate
+     * @param targetClues The maximum number of clues or 0 for minimal puzzles
+     * @param difficulty  The difficulty of the puzzles or null for any difficulty
+     * @return The puzzles
+     */
+    public List<Board> generateAll(int count, int targetClues, Difficulty difficulty) {
+        SplittableRandom[] randoms = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            randoms[i] = random.split();
+        }
+        return IntStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> new PuzzleGenerator(geometry, randoms[i]).generate(targetClues, difficulty))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Removes clues from a full grid in random order for as long as the puzzle stays unique and no harder than the
+     * requested difficulty, stopping early once the clue target is reached.
+     */
+    private Board removeClues(Board solution, int targetClues, Difficulty difficulty) {
+        Board puzzle = solution.copy();
+        int[] order = shuffledCells();
+        int clues = geometry.getCells();
+        for (int index : order) {
+            if (clues <= targetClues) {
+                break;
+            }
+            int value = puzzle.get(index);
+            puzzle.set(index, 0);
+            if (keepsRemoval(puzzle, difficulty)) {
+                clues--;
+            } else {
+                puzzle.set(index, value);
+            }
+        }
+        return puzzle;
+    }
+
+    private boolean keepsRemoval(Board puzzle, Difficulty difficulty) {
+        // Easier puzzles are proven unique by solving them without guessing
+        if (difficulty == Difficulty.EASY || difficulty == Difficulty.MEDIUM) {
+            return difficulty.solves(puzzle);
+        }
+        return Difficulty.EASY.solves(puzzle) || counter.countSolutions(puzzle, 2).getCount() == 1;
+    }
+
+    /**
+     * Completes a board with a depth first search trying the candidates of every cell in random order.
+     */
+    private boolean fill(CandidateState state) {
+        if (!propagator.propagate(state)) {
+            return false;
+        }
+        if (state.isFinished()) {
+            return true;
+        }
+        int index = heuristic.selectCell(state);
+        long candidates = state.candidates(index);
+        while (candidates != 0) {
+            long bit = randomBit(candidates);
+            candidates ^= bit;
+            int mark = state.mark();
+            state.place(index, CandidateState.digit(bit));
+            if (fill(state)) {
+                return true;
+            }
+            state.undo(mark);
+        }
+        return false;
+    }
+
+    private long randomBit(long mask) {
+        int skip = random.nextInt(Long.bitCount(mask));
+        for (int i = 0; i < skip; i++) {
+            mask &= mask - 1;
+        }
+        return mask & -mask;
+    }
+
+    private int[] shuffledDigits() {
+        int[] digits = new int[geometry.getSize()];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = i + 1;
+        }
+        shuffle(digits);
+        return digits;
+    }
+
+    private int[] shuffledCells() {
+        int[] cells = new int[geometry.getCells()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        shuffle(cells);
+        return cells;
+    }
+
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
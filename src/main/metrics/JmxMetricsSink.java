@@ -0,0 +1,70 @@
+package main.metrics;
+
+import main.solvers.SolveResult;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link SolverMetrics} for every solver it sees and exports each of them as an MBean named
+ * {@code main.solvers:type=SolverMetrics,name=<solver>}, so that they can be watched with any JMX console.
+ *
+ * @author Matthew Lillie
+ */
+public class JmxMetricsSink implements MetricsSink {
+
+    // JMX domain of the exported metrics
+    private static final String DOMAIN = "main.solvers";
+
+    private final MBeanServer server;
+    private final Map<String, SolverMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a new sink exporting to the platform MBean server.
+     */
+    public JmxMetricsSink() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Construct a new sink exporting to a given MBean server.
+     *
+     * @param server The server to register the metrics with
+     */
+    public JmxMetricsSink(MBeanServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public void record(String solver, SolveResult result) {
+        getMetrics(solver).add(result);
+    }
+
+    /**
+     * Gets the totals of a solver, registering them with the MBean server the first time.
+     *
+     * @param solver The name of the solver
+     * @return The totals
+     */
+    public SolverMetrics getMetrics(String solver) {
+        return metrics.computeIfAbsent(solver, this::register);
+    }
+
+    private SolverMetrics register(String solver) {
+        SolverMetrics solverMetrics = new SolverMetrics();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=SolverMetrics,name=" + ObjectName.quote(solver));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(solverMetrics, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not export the metrics of " + solver, e);
+        }
+        return solverMetrics;
+    }
+}
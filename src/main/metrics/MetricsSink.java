@@ -0,0 +1,20 @@
+package main.metrics;
+
+import main.solvers.SolveResult;
+
+/**
+ * Destination for the results of solves, such as a monitoring system. Implementations are called once per solve,
+ * possibly from several threads at once, and should return quickly.
+ *
+ * @author Matthew Lillie
+ */
+public interface MetricsSink {
+
+    /**
+     * Records the result of a solve.
+     *
+     * @param solver The name of the solver that ran
+     * @param result The result of the solve
+     */
+    public void record(String solver, SolveResult result);
+}
@@ -0,0 +1,131 @@
+package main.metrics;
+
+import main.solvers.SolveResult;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of every solve made with one solver. Results can be added from any number of threads at once.
+ *
+ * @author Matthew Lillie
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder deductions = new LongAdder();
+    private final LongAdder forkedTasks = new LongAdder();
+    private final LongAdder stolenTasks = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder wallTime = new LongAdder();
+    private final LongAdder cpuTime = new LongAdder();
+
+    /**
+     * Adds the result of a solve to the totals.
+     *
+     * @param result The result of the solve
+     */
+    public void add(SolveResult result) {
+        solves.increment();
+        if (result.isSolved()) {
+            solved.increment();
+        }
+        nodes.add(result.getNodes());
+        backtracks.add(result.getBacktracks());
+        guesses.add(result.getGuesses());
+        deductions.add(result.getDeductions());
+        forkedTasks.add(result.getForkedTasks());
+        stolenTasks.add(result.getStolenTasks());
+        maxDepth.accumulate(result.getMaxDepth());
+        wallTime.add(result.getWallNanos());
+        cpuTime.add(result.getCpuNanos());
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getGuesses() {
+        return guesses.sum();
+    }
+
+    @Override
+    public long getDeductions() {
+        return deductions.sum();
+    }
+
+    @Override
+    public long getForkedTasks() {
+        return forkedTasks.sum();
+    }
+
+    @Override
+    public long getStolenTasks() {
+        return stolenTasks.sum();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long getWallTimeNanos() {
+        return wallTime.sum();
+    }
+
+    @Override
+    public long getCpuTimeNanos() {
+        return cpuTime.sum();
+    }
+
+    @Override
+    public double getMeanWallTimeMillis() {
+        long count = getSolves();
+        return count == 0 ? 0 : getWallTimeNanos() / 1e6 / count;
+    }
+
+    @Override
+    public void reset() {
+        solves.reset();
+        solved.reset();
+        nodes.reset();
+        backtracks.reset();
+        guesses.reset();
+        deductions.reset();
+        forkedTasks.reset();
+        stolenTasks.reset();
+        maxDepth.reset();
+        wallTime.reset();
+        cpuTime.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "solves=" + getSolves() + ", solved=" + getSolved() + ", nodes=" + getNodes() + ", backtracks="
+                + getBacktracks() + ", guesses=" + getGuesses() + ", deductions=" + getDeductions() + ", maxDepth="
+                + getMaxDepth() + ", forked=" + getForkedTasks() + ", stolen=" + getStolenTasks()
+                + ", meanWall=" + String.format("%.3f", getMeanWallTimeMillis()) + " ms";
+    }
+}
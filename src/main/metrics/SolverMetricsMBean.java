@@ -0,0 +1,38 @@
+package main.metrics;
+
+/**
+ * Management interface of {@link SolverMetrics}, the running totals of every solve made with one solver.
+ *
+ * @author Matthew Lillie
+ */
+public interface SolverMetricsMBean {
+
+    public long getSolves();
+
+    public long getSolved();
+
+    public long getNodes();
+
+    public long getBacktracks();
+
+    public long getGuesses();
+
+    public long getDeductions();
+
+    public long getForkedTasks();
+
+    public long getStolenTasks();
+
+    public long getMaxDepth();
+
+    public long getWallTimeNanos();
+
+    public long getCpuTimeNanos();
+
+    public double getMeanWallTimeMillis();
+
+    /**
+     * Sets every total back to 0.
+     */
+    public void reset();
+}
@@ -0,0 +1,108 @@
+package main.rating;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.solvers.MinimumRemainingValuesHeuristic;
+import main.solvers.PropagationLevel;
+import main.solvers.Propagator;
+import main.solvers.SearchContext;
+import main.solvers.SequentialBacktrackingSolver;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rates puzzles the way a human would experience them. The techniques are tried from the simplest to the hardest and
+ * after every step that makes progress the rater starts over from the simplest one, so a puzzle is only charged for
+ * a hard technique when nothing easier works at that point. When every technique is stuck, an instrumented
+ * backtracking search finishes the puzzle and its effort becomes part of the rating.
+ * <p>
+ * Uniqueness is not checked, puzzles with several solutions are rated by the first solution the search finds. A
+ * rater holds no state between puzzles and can be used from any number of threads.
+ *
+ * @author Matthew Lillie
+ */
+public class DifficultyRater {
+
+    private final List<Technique> techniques;
+    private final SequentialBacktrackingSolver search = new SequentialBacktrackingSolver(
+            new MinimumRemainingValuesHeuristic(), new Propagator(PropagationLevel.SINGLES));
+
+    /**
+     * Construct a new rater using every technique.
+     */
+    public DifficultyRater() {
+        this(EnumSet.allOf(Technique.class));
+    }
+
+    /**
+     * Construct a new rater using only some techniques, leaving the rest of the work to the search.
+     *
+     * @param techniques The techniques to use
+     */
+    public DifficultyRater(Set<Technique> techniques) {
+        this.techniques = new ArrayList<>(EnumSet.copyOf(techniques));
+    }
+
+    /**
+     * Rates a puzzle.
+     *
+     * @param puzzle The puzzle to rate, left untouched
+     * @return The rating
+     */
+    public Rating rate(Board puzzle) {
+        Map<Technique, Integer> uses = new EnumMap<>(Technique.class);
+        CandidateState state = new CandidateState(puzzle.copy());
+        if (!state.isConsistent()) {
+            return new Rating(false, null, uses, false, 0, 0, 0);
+        }
+
+        Technique hardest = null;
+        while (!state.isFinished()) {
+            Technique applied = null;
+            for (Technique technique : techniques) {
+                int result = technique.apply(state);
+                if (result == Propagator.CONTRADICTION) {
+                    return new Rating(false, hardest, uses, false, 0, 0, 0);
+                }
+                if (result > 0) {
+                    applied = technique;
+                    uses.merge(technique, result, Integer::sum);
+                    break;
+                }
+            }
+            if (applied == null) {
+                break;
+            }
+            if (hardest == null || applied.compareTo(hardest) > 0) {
+                hardest = applied;
+            }
+        }
+        if (state.isFinished()) {
+            return new Rating(true, hardest, uses, true, 0, 0, 0);
+        }
+
+        // The techniques are stuck, measure how hard the rest is to search with the candidates they eliminated
+        SearchContext context = new SearchContext();
+        boolean solvable = search.solve(state.copy(), context);
+        return new Rating(solvable, hardest, uses, false, context.getNodes(), context.getGuesses(),
+                context.getBacktracks());
+    }
+
+    /**
+     * Rates puzzles in parallel across all cores.
+     *
+     * @param puzzles The puzzles to rate, left untouched
+     * @return The ratings in the same order as the puzzles
+     */
+    public List<Rating> rateAll(List<Board> puzzles) {
+        return puzzles.parallelStream()
+                .map(this::rate)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,125 @@
+package main.rating;
+
+import main.batch.CommandLine;
+import main.batch.PuzzleReader;
+import main.batch.SolutionWriter;
+import main.board.Board;
+import main.board.Geometry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless command line entry point that rates a file of puzzles, one line per puzzle as for
+ * {@link main.batch.BatchMain}. Puzzles are read in batches that are rated in parallel across all cores, and every
+ * puzzle is written back followed by its score and the hardest technique it needed, separated by tabs, or
+ * {@code search} when the techniques were not enough and {@code unsolvable} when the puzzle has no solution. Lines
+ * that cannot be parsed are written back unchanged followed by {@code invalid}, so that output line n always belongs
+ * to input line n. A count of the puzzles by hardest technique is printed to standard error.
+ * <p>
+ * Usage: {@code [--size n] [--output file] [input file or -]}
+ *
+ * @author Matthew Lillie
+ */
+public class RateMain {
+
+    // Puzzles read before rating them all at once
+    private static final int BATCH_SIZE = 4096;
+    // Written after the raw text of a line that is not a puzzle
+    private static final byte[] INVALID = "\t-\tinvalid".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws IOException {
+        String inputName = "-";
+        String outputName = "-";
+        Geometry geometry = Geometry.CLASSIC;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size":
+                    geometry = CommandLine.requireSize(args, ++i);
+                    break;
+                case "--output":
+                    outputName = CommandLine.requireValue(args, ++i);
+                    break;
+                default:
+                    inputName = args[i];
+            }
+        }
+
+        DifficultyRater rater = new DifficultyRater();
+        Map<Technique, Integer> hardest = new EnumMap<>(Technique.class);
+        int search = 0;
+        int unsolvable = 0;
+        int invalid = 0;
+        long start = System.nanoTime();
+        try (PuzzleReader input = CommandLine.openInput(inputName); SolutionWriter output = CommandLine.openOutput(outputName)) {
+            // Lines in input order, null for an invalid one whose raw bytes are kept instead
+            List<Board> batch = new ArrayList<>(BATCH_SIZE);
+            List<Board> puzzles = new ArrayList<>(BATCH_SIZE);
+            List<byte[]> invalidLines = new ArrayList<>();
+            byte[] raw = new byte[PuzzleReader.MAX_LINE];
+            boolean more = true;
+            while (more) {
+                more = input.nextLine();
+                if (more) {
+                    Board board = new Board(geometry);
+                    if (input.parseInto(board)) {
+                        batch.add(board);
+                        puzzles.add(board);
+                    } else {
+                        batch.add(null);
+                        invalidLines.add(Arrays.copyOf(raw, input.copyLine(raw)));
+                        invalid++;
+                    }
+                }
+                if (batch.size() == BATCH_SIZE || !more && !batch.isEmpty()) {
+                    List<Rating> ratings = rater.rateAll(puzzles);
+                    int nextRating = 0;
+                    int nextInvalid = 0;
+                    for (Board puzzle : batch) {
+                        if (puzzle == null) {
+                            byte[] line = invalidLines.get(nextInvalid++);
+                            byte[] marked = Arrays.copyOf(line, line.length + INVALID.length);
+                            System.arraycopy(INVALID, 0, marked, line.length, INVALID.length);
+                            output.write(marked, marked.length);
+                            continue;
+                        }
+                        Rating rating = ratings.get(nextRating++);
+                        String label;
+                        if (!rating.isSolvable()) {
+                            label = "unsolvable";
+                            unsolvable++;
+                        } else if (!rating.isSolvedByTechniques()) {
+                            label = "search";
+                            search++;
+                        } else {
+                            label = rating.getHardest() == null ? "none" : rating.getHardest().name();
+                            if (rating.getHardest() != null) {
+                                hardest.merge(rating.getHardest(), 1, Integer::sum);
+                            }
+                        }
+                        byte[] line = (puzzle + "\t" + String.format("%.1f", rating.getScore()) + "\t" + label)
+                                .getBytes(StandardCharsets.US_ASCII);
+                        output.write(line, line.length);
+                    }
+                    batch.clear();
+                    puzzles.clear();
+                    invalidLines.clear();
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StringBuilder report = new StringBuilder("Hardest technique:");
+        hardest.forEach((technique, count) -> report.append(' ').append(technique.name()).append('=').append(count));
+        report.append(" search=").append(search).append(", unsolvable=").append(unsolvable)
+                .append(", invalid=").append(invalid)
+                .append(String.format("%nElapsed: %.3f s", seconds));
+        System.err.println(report);
+    }
+}
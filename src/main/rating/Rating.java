@@ -0,0 +1,109 @@
+package main.rating;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The rating of a puzzle by a {@link DifficultyRater}: the hardest technique it needed, how often every technique
+ * made progress and, when the techniques ran out, the effort a search needed to finish it.
+ *
+ * @author Matthew Lillie
+ */
+public class Rating {
+
+    /**
+     * Score every puzzle that cannot be finished by the techniques alone starts from.
+     */
+    public static final double SEARCH_SCORE = 6.0;
+
+    private final boolean solvable;
+    private final Technique hardest;
+    private final Map<Technique, Integer> uses;
+    private final boolean solvedByTechniques;
+    private final long searchNodes;
+    private final long guesses;
+    private final long backtracks;
+
+    /**
+     * Construct a new rating.
+     *
+     * @param solvable           Whether the puzzle has a solution
+     * @param hardest            The hardest technique that made progress or null if none did
+     * @param uses               The number of changes every technique made
+     * @param solvedByTechniques Whether the techniques alone finished the puzzle
+     * @param searchNodes        The nodes the search visited after the techniques ran out
+     * @param guesses            The guesses the search made
+     * @param backtracks         The placements the search had to undo
+     */
+    public Rating(boolean solvable, Technique hardest, Map<Technique, Integer> uses, boolean solvedByTechniques,
+                  long searchNodes, long guesses, long backtracks) {
+        this.solvable = solvable;
+        this.hardest = hardest;
+        this.uses = Collections.unmodifiableMap(new EnumMap<>(uses));
+        this.solvedByTechniques = solvedByTechniques;
+        this.searchNodes = searchNodes;
+        this.guesses = guesses;
+        this.backtracks = backtracks;
+    }
+
+    public boolean isSolvable() {
+        return solvable;
+    }
+
+    /**
+     * @return The hardest technique that made progress or null if the puzzle needed none
+     */
+    public Technique getHardest() {
+        return hardest;
+    }
+
+    /**
+     * @return The number of changes every technique that made progress made
+     */
+    public Map<Technique, Integer> getUses() {
+        return uses;
+    }
+
+    public boolean isSolvedByTechniques() {
+        return solvedByTechniques;
+    }
+
+    public long getSearchNodes() {
+        return searchNodes;
+    }
+
+    public long getGuesses() {
+        return guesses;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Gets the difficulty as a single number. Puzzles finished by the techniques score the weight of the hardest one
+     * they needed, the others score {@link #SEARCH_SCORE} plus the base 2 logarithm of one more than the number of
+     * guesses, so every doubling of the search effort adds a point.
+     *
+     * @return The score, 0 for a puzzle that needed nothing at all
+     */
+    public double getScore() {
+        if (!solvedByTechniques) {
+            return SEARCH_SCORE + Math.log(1 + guesses) / Math.log(2);
+        }
+        return hardest == null ? 0 : hardest.getWeight();
+    }
+
+    @Override
+    public String toString() {
+        if (!solvable) {
+            return "unsolvable";
+        }
+        String result = String.format("%.1f", getScore()) + " (" + (hardest == null ? "nothing" : hardest);
+        if (!solvedByTechniques) {
+            result += ", then search: nodes=" + searchNodes + ", guesses=" + guesses + ", backtracks=" + backtracks;
+        }
+        return result + ")";
+    }
+}
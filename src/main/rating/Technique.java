@@ -0,0 +1,118 @@
+package main.rating;
+
+import main.board.CandidateState;
+import main.solvers.Propagator;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * The human solving techniques a puzzle is rated with, from the simplest to the hardest. Each one carries a weight on
+ * the scale commonly used to rate puzzles, where singles alone are below 2.5 and anything past about 4 is tough.
+ *
+ * @author Matthew Lillie
+ */
+public enum Technique {
+
+    /**
+     * The only place left for a digit within a row, column or box.
+     */
+    HIDDEN_SINGLE("Hidden single", 1.5, Propagator::hiddenSingles),
+
+    /**
+     * A cell with a single candidate left.
+     */
+    NAKED_SINGLE("Naked single", 2.3, Propagator::nakedSingles),
+
+    /**
+     * A digit confined to one line within a box leaves the rest of that line.
+     */
+    POINTING("Pointing", 2.6, Propagator::pointing),
+
+    /**
+     * A digit confined to one box within a line leaves the rest of that box.
+     */
+    CLAIMING("Claiming", 2.8, Propagator::claiming),
+
+    /**
+     * Two cells of a unit sharing the same two candidates.
+     */
+    NAKED_PAIR("Naked pair", 3.0, Propagator::nakedPairs),
+
+    /**
+     * A digit confined to the same two columns within two rows, or the other way around.
+     */
+    X_WING("X-Wing", 3.2, state -> Propagator.fish(state, 2)),
+
+    /**
+     * The only two places left for two digits within a unit.
+     */
+    HIDDEN_PAIR("Hidden pair", 3.4, Propagator::hiddenPairs),
+
+    /**
+     * Three cells of a unit sharing three candidates between them.
+     */
+    NAKED_TRIPLE("Naked triple", 3.6, state -> Propagator.nakedSubsets(state, 3)),
+
+    /**
+     * A digit confined to the same three columns within three rows, or the other way around.
+     */
+    SWORDFISH("Swordfish", 3.8, state -> Propagator.fish(state, 3)),
+
+    /**
+     * The only three places left for three digits within a unit.
+     */
+    HIDDEN_TRIPLE("Hidden triple", 4.0, state -> Propagator.hiddenSubsets(state, 3)),
+
+    /**
+     * Chains of cells that are the only two places for a digit in a unit.
+     */
+    SIMPLE_COLORING("Simple coloring", 4.5, Propagator::simpleColoring),
+
+    /**
+     * Four cells of a unit sharing four candidates between them.
+     */
+    NAKED_QUAD("Naked quad", 5.0, state -> Propagator.nakedSubsets(state, 4)),
+
+    /**
+     * A digit confined to the same four columns within four rows, or the other way around.
+     */
+    JELLYFISH("Jellyfish", 5.2, state -> Propagator.fish(state, 4)),
+
+    /**
+     * The only four places left for four digits within a unit.
+     */
+    HIDDEN_QUAD("Hidden quad", 5.4, state -> Propagator.hiddenSubsets(state, 4));
+
+    private final String displayName;
+    private final double weight;
+    private final ToIntFunction<CandidateState> technique;
+
+    Technique(String displayName, double weight, ToIntFunction<CandidateState> technique) {
+        this.displayName = displayName;
+        this.weight = weight;
+        this.technique = technique;
+    }
+
+    /**
+     * Applies the technique once over the whole board.
+     *
+     * @param state The state to work on
+     * @return The number of changes made or {@link Propagator#CONTRADICTION}
+     */
+    public int apply(CandidateState state) {
+        return technique.applyAsInt(state);
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,61 @@
+package main.server;
+
+import main.batch.CommandLine;
+import main.solvers.PortfolioSolver;
+import main.solvers.Solver;
+import main.solvers.Solvers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Headless command line entry point that runs a {@link SolverServer} until the process is stopped. The counters of
+ * the server are printed to standard error on shutdown.
+ * <p>
+ * Usage: {@code [--port n] [--solver name] [--concurrency n] [--timeout ms]} where the solver is one of
+ * {@link Solvers#names()}. By default the server listens on port 8080, runs as many solves at once as there are
+ * cores and gives every request 10 seconds.
+ *
+ * @author Matthew Lillie
+ */
+public class ServerMain {
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        String solverName = "sequential";
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 10_000;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--solver":
+                    solverName = CommandLine.requireValue(args, ++i);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(CommandLine.requireValue(args, ++i));
+                    break;
+                case "--timeout":
+                    timeoutMillis = Long.parseLong(CommandLine.requireValue(args, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Solver solver = Solvers.create(solverName);
+        SolverServer server = new SolverServer(new InetSocketAddress(port), solver, concurrency, timeoutMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (solver instanceof PortfolioSolver) {
+                ((PortfolioSolver) solver).close();
+            }
+            System.err.println("Server: " + server);
+        }));
+        System.err.println("Listening on http://localhost:" + server.getAddress().getPort() + "/solve with "
+                + (server.isUsingVirtualThreads() ? "virtual threads" : "a thread pool") + ", " + concurrency
+                + " solves at once");
+    }
+}
@@ -0,0 +1,311 @@
+package main.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import main.batch.LatencyHistogram;
+import main.board.Board;
+import main.solvers.DancingLinksSolver;
+import main.solvers.SearchContext;
+import main.solvers.SearchStatus;
+import main.solvers.SolutionCount;
+import main.solvers.SolveResult;
+import main.solvers.SolutionCounter;
+import main.solvers.Solver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP front end solving one puzzle per request, built on the JDK {@link HttpServer} so it runs anywhere
+ * without external services.
+ * <p>
+ * {@code POST /solve} takes a puzzle line as its body, or {@code GET /solve?puzzle=...} as a parameter, in the same
+ * format as the batch mode, and answers with a JSON object holding the solution, whether it is unique (null if the
+ * deadline passed before that was settled) and the statistics of the search. Bodies longer than any puzzle line are
+ * turned away with 413 and counted as invalid. {@code GET /stats} answers with the counters of the server.
+ * <p>
+ * Requests are handled on virtual threads when the JVM has them, otherwise on a cached thread pool, while the solves
+ * themselves run on a fixed pool of platform threads, one per permit, so CPU-bound searches never hold on to the
+ * carrier threads. A request that finds every permit taken is turned away at once with 503, which is the backpressure
+ * clients see. Every solve is given the timeout as its deadline and stops at it, which frees its permit, and the
+ * request is answered with 504 and the statistics gathered until then.
+ *
+ * @author Matthew Lillie
+ */
+public class SolverServer implements AutoCloseable {
+
+    // Constants
+    // Longest puzzle line plus a line break
+    private static final int MAX_BODY = Board.MAX_LINE_SIZE * Board.MAX_LINE_SIZE + 2;
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_NOT_FOUND = 404;
+    private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+    private static final int STATUS_TOO_LARGE = 413;
+    private static final int STATUS_ERROR = 500;
+    private static final int STATUS_UNAVAILABLE = 503;
+    private static final int STATUS_TIMEOUT = 504;
+
+    private final HttpServer server;
+    private final Solver solver;
+    private final SolutionCounter counter = new DancingLinksSolver();
+    private final Semaphore permits;
+    private final long timeoutMillis;
+    private final ExecutorService handlers;
+    private final ExecutorService solvers;
+    private final boolean virtualThreads;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder unsolvable = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Starts a new server.
+     *
+     * @param address       The address to listen on, port 0 for any free port
+     * @param solver        The solver to use, shared by every request
+     * @param concurrency   The most solves running at once
+     * @param timeoutMillis The longest a single solve may take
+     * @throws IOException If the server socket cannot be opened
+     */
+    public SolverServer(InetSocketAddress address, Solver solver, int concurrency, long timeoutMillis)
+            throws IOException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        this.solver = solver;
+        this.permits = new Semaphore(concurrency);
+        this.timeoutMillis = timeoutMillis;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.handlers = virtual != null ? virtual : Executors.newCachedThreadPool();
+        this.solvers = Executors.newFixedThreadPool(concurrency);
+
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/", exchange -> respond(exchange, STATUS_NOT_FOUND, error("Not found")));
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, looked up reflectively so that the server also runs
+     * on JVMs without them.
+     *
+     * @return The executor or null if the JVM has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The address the server listens on
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        requests.increment();
+        String line;
+        if (exchange.getRequestMethod().equals("POST")) {
+            line = readBody(exchange.getRequestBody());
+            if (line.length() > MAX_BODY) {
+                invalid.increment();
+                respond(exchange, STATUS_TOO_LARGE, error("Request body longer than " + MAX_BODY + " bytes"));
+                return;
+            }
+        } else if (exchange.getRequestMethod().equals("GET")) {
+            line = queryParameter(exchange.getRequestURI().getRawQuery(), "puzzle");
+        } else {
+            respond(exchange, STATUS_METHOD_NOT_ALLOWED, error("Use GET or POST"));
+            return;
+        }
+
+        Board puzzle;
+        try {
+            if (line == null) {
+                throw new IllegalArgumentException("Missing puzzle");
+            }
+            puzzle = Board.parse(line.trim());
+        } catch (IllegalArgumentException e) {
+            invalid.increment();
+            respond(exchange, STATUS_BAD_REQUEST, error(e.getMessage()));
+            return;
+        }
+
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, STATUS_UNAVAILABLE, error("Too many puzzles in progress"));
+            return;
+        }
+        long start = System.nanoTime();
+        Future<Answer> result;
+        try {
+            result = solvers.submit(() -> solve(puzzle, start));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            Answer answer = result.get();
+            respond(exchange, answer.status, answer.json);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, STATUS_UNAVAILABLE, error("Interrupted"));
+        } catch (ExecutionException e) {
+            respond(exchange, STATUS_ERROR, error("Solving failed: " + e.getCause()));
+        }
+    }
+
+    /**
+     * Solves a puzzle on a solver thread, releasing its permit once done.
+     */
+    private Answer solve(Board puzzle, long start) {
+        try {
+            Board board = puzzle.copy();
+            SearchContext context = new SearchContext();
+            context.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            SolveResult result = solver.solveWithStats(board, context);
+            // Counting runs under the same deadline, and a count it cuts short leaves uniqueness unknown
+            SolutionCount uniqueness = result.isSolved() ? counter.checkUnique(puzzle, context) : null;
+            long elapsed = System.nanoTime() - start;
+            latencies.record(elapsed);
+            int status = STATUS_OK;
+            if (result.isSolved()) {
+                solved.increment();
+            } else if (result.getStatus() == SearchStatus.UNSOLVABLE) {
+                unsolvable.increment();
+            } else {
+                timedOut.increment();
+                status = STATUS_TIMEOUT;
+            }
+
+            StringBuilder json = new StringBuilder("{\"status\":\"").append(result.getStatus()).append('"');
+            if (result.isSolved()) {
+                json.append(",\"solution\":\"").append(board).append("\",\"unique\":")
+                        .append(uniqueness.isStopped() ? "null" : String.valueOf(uniqueness.isUnique()));
+            }
+            json.append(",\"nodes\":").append(result.getNodes())
+                    .append(",\"guesses\":").append(result.getGuesses())
+                    .append(",\"backtracks\":").append(result.getBacktracks())
+                    .append(",\"micros\":").append(TimeUnit.NANOSECONDS.toMicros(elapsed))
+                    .append('}');
+            return new Answer(status, json.toString());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        String json = "{\"requests\":" + requests.sum()
+                + ",\"solved\":" + solved.sum()
+                + ",\"unsolvable\":" + unsolvable.sum()
+                + ",\"invalid\":" + invalid.sum()
+                + ",\"rejected\":" + rejected.sum()
+                + ",\"timedOut\":" + timedOut.sum()
+                + ",\"available\":" + permits.availablePermits()
+                + ",\"p50Micros\":" + TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(50))
+                + ",\"p99Micros\":" + TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(99))
+                + ",\"maxMicros\":" + TimeUnit.NANOSECONDS.toMicros(latencies.getMax())
+                + "}";
+        respond(exchange, STATUS_OK, json);
+    }
+
+    /**
+     * HTTP status and JSON body of a finished solve.
+     */
+    private static class Answer {
+
+        private final int status;
+        private final String json;
+
+        Answer(int status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+
+    /**
+     * Reads the body of a request, stopping one byte past {@link #MAX_BODY} so a longer body is recognized without
+     * reading all of it.
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while (body.size() <= MAX_BODY
+                && (read = in.read(buffer, 0, Math.min(buffer.length, MAX_BODY + 1 - body.size()))) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.US_ASCII);
+            }
+        }
+        return null;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for the ones in progress and stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdownNow();
+        solvers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + requests.sum() + ", solved=" + solved.sum() + ", unsolvable=" + unsolvable.sum()
+                + ", invalid=" + invalid.sum() + ", rejected=" + rejected.sum() + ", timedOut=" + timedOut.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package main.solvers;
+
+import main.board.CandidateState;
+
+/**
+ * Decides which empty cell a backtracking solver branches on next and in which order its candidates are tried.
+ *
+ * @author Matthew Lillie
+ */
+public interface BranchHeuristic {
+
+    /**
+     * Selects the next cell to branch on. Only called while the board still has empty cells.
+     *
+     * @param state The constraint state of the board being solved
+     * @return The index of an empty cell
+     */
+    public int selectCell(CandidateState state);
+
+    /**
+     * Selects the next cell to branch on, knowing the cell the level above branched on. Every cell that comes before
+     * that one in a fixed order is still filled, so a heuristic following such an order can carry on from there
+     * instead of scanning the whole board again.
+     *
+     * @param state    The constraint state of the board being solved
+     * @param previous The cell the level above branched on, or -1 at the top of the search
+     * @return The index of an empty cell
+     */
+    public default int selectCell(CandidateState state, int previous) {
+        return selectCell(state);
+    }
+
+    /**
+     * Selects the candidate of a cell to try next. By default digits are tried from the lowest up.
+     *
+     * @param state      The constraint state of the board being solved
+     * @param index      The cell being branched on
+     * @param candidates The candidates of the cell not tried yet, never 0
+     * @return A single bit of the candidates
+     */
+    public default long selectValue(CandidateState state, int index, long candidates) {
+        return candidates & -candidates;
+    }
+}
@@ -0,0 +1,296 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.board.Geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Solves a sudoku puzzle as an exact cover problem using Knuth's Algorithm X with dancing links.
+ * <p>
+ * Every placement of a digit into a cell is a row of the matrix (729 rows for a classic board) and every constraint is
+ * a column (324 columns): each cell holds one digit and each row, column and box holds every digit once. The links
+ * are kept in flat int arrays that are built once per board shape and copied into a per-thread workspace for every
+ * solve, so the search itself never allocates. This makes it the fastest way to count solutions or prove that a
+ * puzzle is unique.
+ *
+ * @author Matthew Lillie
+ */
+public class DancingLinksSolver implements Solver, SolutionCounter {
+
+    // Constants
+    private static final int ROOT = 0;
+
+    // The fully linked matrix every workspace of a board shape starts from
+    private static final ConcurrentMap<Geometry, Workspace> TEMPLATES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Workspace> WORKSPACES = new ThreadLocal<>();
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        SolutionCount result = countSolutions(board, 1, 1, context);
+        if (result.getCount() == 0) {
+            return false;
+        }
+        board.copyFrom(result.getSolutions().get(0));
+        return true;
+    }
+
+    @Override
+    public SolutionCount countSolutions(Board board, long limit, int keep, SearchContext context) {
+        List<Board> solutions = new ArrayList<>();
+        if (limit <= 0 || !new CandidateState(board.copy()).isConsistent()) {
+            return new SolutionCount(0, limit, solutions);
+        }
+        Workspace workspace = workspace(board.getGeometry());
+        workspace.reset(board, limit, keep, solutions, context);
+        for (int index = 0; index < workspace.cells; index++) {
+            int digit = board.get(index);
+            if (digit != 0) {
+                workspace.select(workspace.firstNode(index * workspace.digits + digit - 1));
+            }
+        }
+        workspace.search(0);
+        long count = workspace.count;
+        workspace.release();
+        return new SolutionCount(count, limit, solutions, count < limit ? context.getStopReason() : null);
+    }
+
+    /**
+     * Gets the workspace of the current thread, replacing it if it was built for a different board shape.
+     */
+    private static Workspace workspace(Geometry geometry) {
+        Workspace workspace = WORKSPACES.get();
+        if (workspace == null || workspace.geometry != geometry) {
+            workspace = new Workspace(geometry);
+            WORKSPACES.set(workspace);
+        }
+        return workspace;
+    }
+
+    private static Workspace template(Geometry geometry) {
+        return TEMPLATES.computeIfAbsent(geometry, g -> {
+            Workspace template = new Workspace(g);
+            template.link();
+            return template;
+        });
+    }
+
+    /**
+     * The links of one matrix together with the state of a search running over it.
+     */
+    private static class Workspace {
+
+        private final Geometry geometry;
+        private final int digits;
+        private final int cells;
+        private final int rows;
+        private final int columns;
+        private final int nodes;
+
+        private final int[] left;
+        private final int[] right;
+        private final int[] up;
+        private final int[] down;
+        private final int[] column;
+        private final int[] size;
+        // Matrix rows chosen at each depth of the search
+        private final int[] chosen;
+
+        private Board board;
+        private SearchContext context;
+        private List<Board> solutions;
+        private long limit;
+        private int keep;
+        private long count;
+
+        Workspace(Geometry geometry) {
+            this.geometry = geometry;
+            this.digits = geometry.getSize();
+            this.cells = geometry.getCells();
+            this.rows = cells * digits;
+            this.columns = cells * 4;
+            this.nodes = 1 + columns + rows * 4;
+            this.left = new int[nodes];
+            this.right = new int[nodes];
+            this.up = new int[nodes];
+            this.down = new int[nodes];
+            this.column = new int[nodes];
+            this.size = new int[1 + columns];
+            this.chosen = new int[cells];
+        }
+
+        int firstNode(int row) {
+            return 1 + columns + row * 4;
+        }
+
+        /**
+         * Builds the full matrix, only used for the templates.
+         */
+        void link() {
+            // Column headers in a circular list around the root
+            for (int c = 0; c <= columns; c++) {
+                left[c] = c == 0 ? columns : c - 1;
+                right[c] = c == columns ? 0 : c + 1;
+                up[c] = c;
+                down[c] = c;
+                column[c] = c;
+            }
+            for (int row = 0; row < rows; row++) {
+                int cell = row / digits;
+                int digit = row % digits;
+                int[] headers = {
+                        1 + cell,
+                        1 + cells + geometry.rowOf(cell) * digits + digit,
+                        1 + cells * 2 + geometry.columnOf(cell) * digits + digit,
+                        1 + cells * 3 + geometry.boxOf(cell) * digits + digit
+                };
+                int first = firstNode(row);
+                for (int i = 0; i < 4; i++) {
+                    int node = first + i;
+                    int header = headers[i];
+                    left[node] = first + (i + 3) % 4;
+                    right[node] = first + (i + 1) % 4;
+                    column[node] = header;
+                    // Append to the bottom of the column
+                    up[node] = up[header];
+                    down[node] = header;
+                    down[up[header]] = node;
+                    up[header] = node;
+                    size[header]++;
+                }
+            }
+        }
+
+        void reset(Board board, long limit, int keep, List<Board> solutions, SearchContext context) {
+            Workspace template = template(geometry);
+            System.arraycopy(template.left, 0, left, 0, nodes);
+            System.arraycopy(template.right, 0, right, 0, nodes);
+            System.arraycopy(template.up, 0, up, 0, nodes);
+            System.arraycopy(template.down, 0, down, 0, nodes);
+            System.arraycopy(template.column, 0, column, 0, nodes);
+            System.arraycopy(template.size, 0, size, 0, size.length);
+            this.board = board;
+            this.limit = limit;
+            this.keep = keep;
+            this.solutions = solutions;
+            this.context = context;
+            this.count = 0;
+        }
+
+        /**
+         * Drops the references to the last count so the workspace does not keep them alive.
+         */
+        void release() {
+            this.board = null;
+            this.solutions = null;
+            this.context = null;
+        }
+
+        /**
+         * Removes a given row and every constraint it satisfies from the matrix.
+         */
+        void select(int node) {
+            int j = node;
+            do {
+                cover(column[j]);
+                j = right[j];
+            } while (j != node);
+        }
+
+        void search(int depth) {
+            context.node();
+            if (context.isStopped()) {
+                return;
+            }
+            if (context.isProgressWanted()) {
+                // The board itself is never updated during the search, so only build one when asked for
+                context.progress(fill(board.copy(), depth));
+            }
+            if (right[ROOT] == ROOT) {
+                found(depth);
+                return;
+            }
+
+            // Branch on the constraint with the fewest rows left
+            int best = right[ROOT];
+            for (int c = right[best]; c != ROOT && size[best] > 1; c = right[c]) {
+                if (size[c] < size[best]) {
+                    best = c;
+                }
+            }
+            if (size[best] == 0) {
+                return;
+            }
+
+            // A constraint with a single row left is forced, anything else is a guess
+            boolean guessing = size[best] > 1;
+            if (!guessing) {
+                context.deduced(1);
+            }
+            cover(best);
+            for (int r = down[best]; r != best && count < limit; r = down[r]) {
+                if (guessing) {
+                    context.guess(depth);
+                }
+                chosen[depth] = r;
+                for (int j = right[r]; j != r; j = right[j]) {
+                    cover(column[j]);
+                }
+                search(depth + 1);
+                for (int j = left[r]; j != r; j = left[j]) {
+                    uncover(column[j]);
+                }
+                if (count < limit) {
+                    context.backtrack();
+                }
+            }
+            uncover(best);
+        }
+
+        void found(int depth) {
+            if (count++ < keep) {
+                solutions.add(fill(board.copy(), depth));
+            }
+        }
+
+        /**
+         * Writes the placements of the rows chosen so far into a board.
+         */
+        Board fill(Board target, int depth) {
+            for (int i = 0; i < depth; i++) {
+                int row = (chosen[i] - 1 - columns) / 4;
+                target.set(row / digits, row % digits + 1);
+            }
+            return target;
+        }
+
+        void cover(int c) {
+            right[left[c]] = right[c];
+            left[right[c]] = left[c];
+            for (int i = down[c]; i != c; i = down[i]) {
+                for (int j = right[i]; j != i; j = right[j]) {
+                    up[down[j]] = up[j];
+                    down[up[j]] = down[j];
+                    size[column[j]]--;
+                }
+            }
+        }
+
+        void uncover(int c) {
+            for (int i = up[c]; i != c; i = up[i]) {
+                for (int j = left[i]; j != i; j = left[j]) {
+                    size[column[j]]++;
+                    up[down[j]] = j;
+                    down[up[j]] = j;
+                }
+            }
+            right[left[c]] = c;
+            left[right[c]] = c;
+        }
+    }
+}
@@ -1,111 +1,312 @@
 package main.solvers;
 
-import main.Puzzle;
-import main.PuzzleHelpers;
-import main.PuzzleNode;
+import main.board.Board;
+import main.board.CandidateState;
 
-import javax.swing.*;
-import java.awt.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterators;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Finds all possible solutions to a given suduko puzzle using the Java ForkJoinPool and RecursiveTask libraries.
+ * Finds all possible solutions to a given suduko puzzle using the Java ForkJoinPool and RecursiveAction libraries.
+ * Solutions are handed to a {@link SolutionSink} as they are found rather than collected, and every task stops as soon
+ * as the sink asks to. Each task searches depth first on a single state and copies it only when a branch is actually
+ * forked, into a state recycled by the worker thread, so an enumeration allocates next to nothing per search node.
+ * The solutions can also be pulled one at a time through {@link #solutions(Board)} or {@link #iterator(Board)}.
  *
  * @author Matthew Lillie
  */
-public class ForkPoolAllSolver implements Solver {
+public class ForkPoolAllSolver implements Solver, SolutionCounter {
+
+    // Constants
+    private static final int MAX_SURPLUS_TASKS = 2;
+    private static final int MAX_SPARE_STATES = 16;
+
+    // States of finished forked tasks, kept by every worker thread for the next forks
+    private static final ThreadLocal<Deque<CandidateState>> SPARE_STATES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Heuristic used to pick the cell to branch on.
+     */
+    private final BranchHeuristic heuristic;
+
+    /**
+     * Propagator applied at every search node.
+     */
+    private final Propagator propagator;
+
+    /**
+     * Construct a new solver that propagates singles and branches on the most constrained cell first.
+     */
+    public ForkPoolAllSolver() {
+        this(new MinimumRemainingValuesHeuristic());
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic.
+     *
+     * @param heuristic The heuristic used to pick the cell to branch on
+     */
+    public ForkPoolAllSolver(BranchHeuristic heuristic) {
+        this(heuristic, new Propagator(PropagationLevel.SINGLES));
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic and propagator.
+     *
+     * @param heuristic  The heuristic used to pick the cell to branch on
+     * @param propagator The propagator applied at every search node
+     */
+    public ForkPoolAllSolver(BranchHeuristic heuristic, Propagator propagator) {
+        this.heuristic = heuristic;
+        this.propagator = propagator;
+    }
 
     @Override
-    public boolean solve(Puzzle puzzle) {
-        List<PuzzleNode[][]> allResults = new ForkJoinPool().invoke(new ForkSolver(puzzle, puzzle.getCurrentBoard().clone()));
+    public boolean solve(Board board, SearchContext context) {
+        // Every task stops once the first solution is in, however many more the board has
+        SolutionCount result = countSolutions(board, 1, 1, context);
 
-        if (allResults.isEmpty()) {
-            System.out.println("No solution?");
+        if (result.getCount() == 0) {
             return false;
-        } else {
-            System.out.println("Found: " + allResults.size() + " solutions!");
-            return true;
         }
+        board.copyFrom(result.getSolutions().get(0));
+        return true;
     }
 
+    @Override
+    public SolutionCount countSolutions(Board board, long limit, int keep, SearchContext context) {
+        Counter counter = new Counter(limit, keep);
+        if (limit > 0) {
+            enumerate(board, counter, context);
+        }
+        long count = counter.count.get();
+        return new SolutionCount(count, limit, counter.solutions, count < limit ? context.getStopReason() : null);
+    }
 
-    private static class ForkSolver extends RecursiveTask<List<PuzzleNode[][]>> {
+    /**
+     * Hands every solution of a board to a sink as soon as it is found, from whichever worker thread found it.
+     *
+     * @param board   The board to solve, left untouched
+     * @param sink    The sink receiving the solutions, which can stop the enumeration
+     * @param context The context collecting statistics about the search
+     */
+    public void enumerate(Board board, SolutionSink sink, SearchContext context) {
+        CandidateState state = new CandidateState(board.copy());
+        if (state.isConsistent()) {
+            ForkJoinPool.commonPool().invoke(new ForkSolver(state, 0, new Enumeration(sink, context), null));
+        }
+    }
+
+    /**
+     * Lists the solutions of a board lazily: the search only goes as far as the solutions taken from the stream, so
+     * taking the first few of a board with millions of solutions is cheap. A parallel stream searches disjoint
+     * subtrees on the common pool, in which case the order of the solutions is not defined.
+     *
+     * @param board   The board to solve, left untouched
+     * @param context The context collecting statistics about the search
+     * @return The stream of solutions, each one a new board
+     */
+    public Stream<Board> solutions(Board board, SearchContext context) {
+        return StreamSupport.stream(new SolutionSpliterator(board, heuristic, propagator, context), false);
+    }
 
-        private Puzzle puzzle;
-        private PuzzleNode[][] board;
+    /**
+     * Lists the solutions of a board lazily.
+     *
+     * @param board The board to solve, left untouched
+     * @return The stream of solutions, each one a new board
+     * @see #solutions(Board, SearchContext)
+     */
+    public Stream<Board> solutions(Board board) {
+        return solutions(board, new SearchContext());
+    }
 
-        ForkSolver(Puzzle puzzle, PuzzleNode[][] board) {
-            this.puzzle = puzzle;
-            this.board = board;
+    /**
+     * Iterates over the solutions of a board, searching for the next one only when it is asked for.
+     *
+     * @param board The board to solve, left untouched
+     * @return The iterator over the solutions, each one a new board
+     */
+    public Iterator<Board> iterator(Board board) {
+        return Spliterators.iterator(new SolutionSpliterator(board, heuristic, propagator, new SearchContext()));
+    }
+
+    /**
+     * Takes a spare state of the current worker thread, or allocates one, and copies the given state into it.
+     */
+    private static CandidateState acquire(CandidateState state) {
+        CandidateState spare = SPARE_STATES.get().poll();
+        if (spare == null || spare.getGeometry() != state.getGeometry()) {
+            return state.copy();
+        }
+        spare.copyFrom(state);
+        return spare;
+    }
+
+    private static void release(CandidateState state) {
+        Deque<CandidateState> spares = SPARE_STATES.get();
+        if (spares.size() < MAX_SPARE_STATES) {
+            spares.push(state);
+        }
+    }
+
+    /**
+     * Sink counting the solutions and keeping copies of the first few, which stops the enumeration at a limit.
+     */
+    private static class Counter implements SolutionSink {
+
+        private final long limit;
+        private final int keep;
+        private final AtomicLong count = new AtomicLong();
+        private final List<Board> solutions = new ArrayList<>();
+
+        Counter(long limit, int keep) {
+            this.limit = limit;
+            this.keep = keep;
         }
 
         @Override
-        protected List<PuzzleNode[][]> compute() {
-            if (PuzzleHelpers.isFinished(board)) {
-                return Arrays.asList(new PuzzleNode[][][]{board});
-            }
+        public boolean accept(Board solution) {
+            long n;
+            do {
+                n = count.get();
+                if (n >= limit) {
+                    return false;
+                }
+            } while (!count.compareAndSet(n, n + 1));
 
-            /*
-             * Loop through and create all possible solvers for any found 0 value
-             */
-            List<ForkSolver> solvers = new ArrayList<>();
-            start:
-            for (int x = 0; x < Puzzle.NUMBER_OF_SQUARES; x++) {
-                for (int y = 0; y < Puzzle.NUMBER_OF_SQUARES; y++) {
-                    if (board[x][y].getValue() == 0) {
-                        for (int n = 1; n <= Puzzle.NUMBER_OF_SQUARES; n++) {
-                            if (PuzzleHelpers.checkValid(board, x, y, n)) {
-                                board[x][y].setValue(n);
-                                board[x][y].setColor(Color.RED);
-                                PuzzleNode[][] nextBoard = new PuzzleNode[Puzzle.NUMBER_OF_SQUARES][Puzzle.NUMBER_OF_SQUARES];
-                                for (int i = 0; i < Puzzle.NUMBER_OF_SQUARES; i++) {
-                                    for (int j = 0; j < Puzzle.NUMBER_OF_SQUARES; j++) {
-                                        nextBoard[i][j] = (PuzzleNode) board[i][j].clone();
-                                    }
-                                }
-                                ForkSolver nextSolver = new ForkSolver(puzzle, nextBoard);
-                                solvers.add(nextSolver);
-                                board[x][y].setValue(0);
-                                board[x][y].setColor(Color.BLACK);
-                            }
-                        }
-                        break start;
-                    }
+            if (n < keep) {
+                synchronized (solutions) {
+                    solutions.add(solution.copy());
                 }
             }
+            return n + 1 < limit;
+        }
+    }
+
+    /**
+     * State shared by every task of one enumeration. Once the sink asks to stop every task stops.
+     */
+    private static class Enumeration {
+
+        private final SolutionSink sink;
+        private final SearchContext context;
+        private volatile boolean stopped;
 
-            // Reset and check if empty
-            board = null;
-            if (solvers.isEmpty()) {
-                return null;
+        Enumeration(SolutionSink sink, SearchContext context) {
+            this.sink = sink;
+            this.context = context;
+        }
+
+        void found(Board solution) {
+            if (!stopped && !sink.accept(solution)) {
+                stopped = true;
             }
+        }
+    }
+
+    /**
+     * Searches a subtree depth first on a state of its own, placing and undoing digits in place. Only while the
+     * worker is short of queued work is a branch handed out as a new task, on a copy of the state taken from the
+     * spare states of the worker.
+     */
+    private class ForkSolver extends RecursiveAction {
 
-            // Invoke all the solvers and return all solutions that have been found...
-            invokeAll(solvers);
+        private final CandidateState state;
+        private final int depth;
+        private final Enumeration enumeration;
+        private final SearchContext context;
+        // Thread that forked this task, null for the root task whose state is not a spare one
+        private final Thread forker;
+        // Tasks forked by this task, newest first, and the next one forked by the same parent
+        private ForkSolver forked;
+        private ForkSolver next;
 
-            List<PuzzleNode[][]> allBoards = new ArrayList<>();
-            for (ForkSolver solver : solvers) {
-                List<PuzzleNode[][]> boards = solver.join();
+        ForkSolver(CandidateState state, int depth, Enumeration enumeration, Thread forker) {
+            this.state = state;
+            this.depth = depth;
+            this.enumeration = enumeration;
+            this.context = enumeration.context;
+            this.forker = forker;
+        }
 
-                if (boards == null || boards.isEmpty()) {
-                    continue;
+        @Override
+        protected void compute() {
+            if (forker != null && forker != Thread.currentThread()) {
+                context.stolen();
+            }
+            boolean work = context.beginWork();
+            try {
+                search(depth);
+                // Tasks nobody stole are run right here, newest first
+                for (ForkSolver task = forked; task != null; task = task.next) {
+                    task.join();
                 }
+            } finally {
+                context.endWork(work);
+            }
+            if (forker != null) {
+                release(state);
+            }
+        }
 
-                if (!allBoards.containsAll(boards)) {
+        private void search(int depth) {
+            if (enumeration.stopped) {
+                return;
+            }
+            context.node();
+            if (context.isStopped()) {
+                return;
+            }
+            if (!propagator.propagate(state, context)) {
+                context.backtrack();
+                return;
+            }
+            if (context.isProgressWanted()) {
+                context.progress(state.getBoard());
+            }
+            if (state.isFinished()) {
+                enumeration.found(state.getBoard());
+                return;
+            }
 
-                    for (PuzzleNode[][] board : boards) {
-                        puzzle.setCurrentBoard(board);
-                        SwingUtilities.invokeLater(puzzle::repaint);
-                    }
-                    allBoards.addAll(boards);
+            int index = heuristic.selectCell(state);
+            long candidates = state.candidates(index);
+            if (candidates == 0) {
+                context.backtrack();
+                return;
+            }
+            boolean guessing = Long.bitCount(candidates) > 1;
+            for (; candidates != 0; candidates &= candidates - 1) {
+                int digit = CandidateState.digit(candidates & -candidates);
+                if (guessing) {
+                    context.guess(depth);
+                }
+                // The last candidate is always searched here
+                boolean last = (candidates & (candidates - 1)) == 0;
+                if (!last && getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS) {
+                    ForkSolver task = new ForkSolver(acquire(state), depth + 1, enumeration, Thread.currentThread());
+                    task.state.place(index, digit);
+                    task.next = forked;
+                    forked = task;
+                    context.forked(1);
+                    task.fork();
+                } else {
+                    int mark = state.mark();
+                    state.place(index, digit);
+                    search(depth + 1);
+                    state.undo(mark);
                 }
             }
-
-            return allBoards;
         }
     }
 }
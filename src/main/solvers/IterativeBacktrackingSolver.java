@@ -0,0 +1,118 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+
+/**
+ * Solves a sudoku puzzle with the same search as {@link SequentialBacktrackingSolver} but without recursion. Every
+ * level of the search keeps the cell it branches on, the candidates it has not tried yet and the trail mark to undo
+ * to in primitive arrays sized for the whole board, so going one level deeper or coming back costs no call frame and
+ * no allocation, and the largest boards cannot overflow the stack.
+ *
+ * @author Matthew Lillie
+ */
+public class IterativeBacktrackingSolver implements Solver {
+
+    /**
+     * Heuristic used to pick the cell to branch on.
+     */
+    private final BranchHeuristic heuristic;
+
+    /**
+     * Propagator applied at every search node.
+     */
+    private final Propagator propagator;
+
+    /**
+     * Construct a new solver that propagates singles and branches on the most constrained cell first.
+     */
+    public IterativeBacktrackingSolver() {
+        this(new MinimumRemainingValuesHeuristic());
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic.
+     *
+     * @param heuristic The heuristic used to pick the cell to branch on
+     */
+    public IterativeBacktrackingSolver(BranchHeuristic heuristic) {
+        this(heuristic, new Propagator(PropagationLevel.SINGLES));
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic and propagator.
+     *
+     * @param heuristic  The heuristic used to pick the cell to branch on
+     * @param propagator The propagator applied at every search node
+     */
+    public IterativeBacktrackingSolver(BranchHeuristic heuristic, Propagator propagator) {
+        this.heuristic = heuristic;
+        this.propagator = propagator;
+    }
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        CandidateState state = new CandidateState(board);
+        if (!state.isConsistent()) {
+            return false;
+        }
+
+        // One level per empty cell at most
+        int levels = state.getEmpty() + 1;
+        int[] cells = new int[levels];
+        long[] remaining = new long[levels];
+        int[] marks = new int[levels];
+        boolean[] guessing = new boolean[levels];
+        int depth = 0;
+        boolean expand = true;
+        while (true) {
+            if (expand) {
+                context.node();
+                if (context.isStopped()) {
+                    state.undo(0);
+                    return false;
+                }
+                if (propagator.propagate(state, context)) {
+                    if (context.isProgressWanted()) {
+                        context.progress(board);
+                    }
+                    // If every square is filled, then we finished!
+                    if (state.isFinished()) {
+                        return true;
+                    }
+                    int index = heuristic.selectCell(state, depth == 0 ? -1 : cells[depth - 1]);
+                    cells[depth] = index;
+                    remaining[depth] = state.candidates(index);
+                    marks[depth] = state.mark();
+                    guessing[depth] = Long.bitCount(remaining[depth]) > 1;
+                    depth++;
+                }
+                expand = false;
+            }
+
+            // Undo the last try of the deepest level and move on to its next candidate, leaving levels that ran out
+            if (depth == 0) {
+                // Leave the board as it was given
+                state.undo(0);
+                return false;
+            }
+            int level = depth - 1;
+            if (state.mark() > marks[level]) {
+                state.undo(marks[level]);
+                context.backtrack();
+            }
+            long candidates = remaining[level];
+            if (candidates == 0) {
+                depth--;
+                continue;
+            }
+            long bit = heuristic.selectValue(state, cells[level], candidates);
+            remaining[level] = candidates ^ bit;
+            if (guessing[level]) {
+                context.guess(level);
+            }
+            state.place(cells[level], CandidateState.digit(bit));
+            expand = true;
+        }
+    }
+}
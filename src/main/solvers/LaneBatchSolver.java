@@ -0,0 +1,380 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.Geometry;
+
+/**
+ * Solves many boards of one shape at once, data-parallel style. The boards of a batch are laid out in lanes, struct
+ * of arrays: the digit of cell c in lane l is at {@code c * lanes + l} and the used digits of unit u at
+ * {@code u * lanes + l}, so every step of the deduction is a loop over the lanes of one cell or unit with the same
+ * operation on consecutive longs, which the JIT compiles to vector instructions where the hardware has them.
+ * <p>
+ * Each sweep computes the candidates of every cell in every lane and collects the digits every unit has room for in
+ * a single cell only, then places all the naked and hidden singles found. Easy puzzles are finished by the sweeps
+ * alone; lanes that get stuck are handed, as far as the sweeps got them, to a delegate solver one board at a time,
+ * and lanes that reach a contradiction have no solution. A lane is refilled with the next board of the batch as soon
+ * as it is done, so the lanes stay busy however many sweeps each board needs.
+ * <p>
+ * Every worker thread keeps its own lanes per board shape, so a solver can be shared by any number of threads and
+ * solving a batch does not allocate.
+ *
+ * @author Matthew Lillie
+ */
+public class LaneBatchSolver implements Solver {
+
+    /**
+     * Number of boards solved together when not given.
+     */
+    public static final int DEFAULT_LANES = 32;
+
+    private final int lanes;
+    private final Solver delegate;
+    private final ThreadLocal<Lanes> workspaces = new ThreadLocal<>();
+
+    /**
+     * Construct a new solver with the default number of lanes that finishes stuck boards with an iterative
+     * backtracking search.
+     */
+    public LaneBatchSolver() {
+        this(DEFAULT_LANES);
+    }
+
+    /**
+     * Construct a new solver with a given number of lanes that finishes stuck boards with an iterative backtracking
+     * search.
+     *
+     * @param lanes The number of boards solved together
+     */
+    public LaneBatchSolver(int lanes) {
+        this(lanes, new IterativeBacktrackingSolver());
+    }
+
+    /**
+     * Construct a new solver with a given number of lanes and a solver for the boards the sweeps cannot finish.
+     *
+     * @param lanes    The number of boards solved together
+     * @param delegate The solver finishing stuck boards
+     */
+    public LaneBatchSolver(int lanes, Solver delegate) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Lanes must be positive: " + lanes);
+        }
+        this.lanes = lanes;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        boolean[] solved = new boolean[1];
+        solveAll(new Board[]{board}, 1, solved, context);
+        return solved[0];
+    }
+
+    /**
+     * Solves boards in place, as many at a time as there are lanes. Boards without a solution are left as they were
+     * given.
+     *
+     * @param boards The boards to solve, all of the same shape
+     * @param count  The number of boards to solve, from the start of the array
+     * @param solved Set to whether each board was solved
+     * @return The number of boards solved
+     * @throws IllegalArgumentException If the boards are not all of the same shape
+     */
+    public int solveAll(Board[] boards, int count, boolean[] solved) {
+        return solveAll(boards, count, solved, new SearchContext());
+    }
+
+    /**
+     * Solves boards in place, as many at a time as there are lanes, recording the deductions of the sweeps and the
+     * search effort of the delegate in the given context. Boards without a solution are left as they were given.
+     *
+     * @param boards  The boards to solve, all of the same shape
+     * @param count   The number of boards to solve, from the start of the array
+     * @param solved  Set to whether each board was solved
+     * @param context The context collecting statistics about the search
+     * @return The number of boards solved
+     * @throws IllegalArgumentException If the boards are not all of the same shape
+     */
+    public int solveAll(Board[] boards, int count, boolean[] solved, SearchContext context) {
+        if (count == 0) {
+            return 0;
+        }
+        Geometry geometry = boards[0].getGeometry();
+        for (int i = 1; i < count; i++) {
+            if (boards[i].getGeometry() != geometry) {
+                throw new IllegalArgumentException("Boards of different shapes: " + geometry + " and "
+                        + boards[i].getGeometry());
+            }
+        }
+        Lanes workspace = workspaces.get();
+        if (workspace == null || workspace.geometry != geometry) {
+            workspace = new Lanes(geometry, lanes);
+            workspaces.set(workspace);
+        }
+
+        return workspace.solve(boards, count, solved, context);
+    }
+
+    /**
+     * @return The number of boards solved together
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    public Solver getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * The struct of arrays state of one batch of boards.
+     */
+    private class Lanes {
+
+        private final Geometry geometry;
+        private final int width;
+        private final long allDigits;
+        // Per cell the offsets of its row, column and box, already multiplied by the number of lanes
+        private final int[] rowBase;
+        private final int[] columnBase;
+        private final int[] boxBase;
+        // Per cell and lane: the digit, all ones while empty otherwise 0, and the candidates of the current sweep
+        private final byte[] digits;
+        private final long[] open;
+        private final long[] candidates;
+        // Per unit and lane, the digits used and the digits that fit a single cell in the current sweep
+        private final long[] used;
+        private final long[] hidden;
+        // Per lane, the digits seen once and more than once in the unit being scanned
+        private final long[] once;
+        private final long[] twice;
+        // Per lane: the board it holds, its empty cells and the singles placed by the current sweep
+        private final int[] boardOf;
+        private final int[] empty;
+        private final int[] placed;
+        // Per lane, not 0 once it reached a contradiction
+        private final long[] failed;
+        // Board the delegate finishes a stuck lane on
+        private final Board scratch;
+
+        Lanes(Geometry geometry, int width) {
+            this.geometry = geometry;
+            this.width = width;
+            this.allDigits = geometry.getAllDigits();
+            int cells = geometry.getCells();
+            int size = geometry.getSize();
+            this.rowBase = new int[cells];
+            this.columnBase = new int[cells];
+            this.boxBase = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                rowBase[cell] = geometry.rowOf(cell) * width;
+                columnBase[cell] = (size + geometry.columnOf(cell)) * width;
+                boxBase[cell] = (2 * size + geometry.boxOf(cell)) * width;
+            }
+            this.digits = new byte[cells * width];
+            this.open = new long[cells * width];
+            this.candidates = new long[cells * width];
+            this.used = new long[geometry.getUnits() * width];
+            this.hidden = new long[geometry.getUnits() * width];
+            this.once = new long[width];
+            this.twice = new long[width];
+            this.boardOf = new int[width];
+            this.empty = new int[width];
+            this.placed = new int[width];
+            this.failed = new long[width];
+            this.scratch = new Board(geometry);
+        }
+
+        int solve(Board[] boards, int count, boolean[] solved, SearchContext context) {
+            int next = 0;
+            int active = 0;
+            while (active < width && next < count) {
+                load(active++, boards, next++);
+            }
+
+            int total = 0;
+            while (active > 0) {
+                context.node();
+                if (context.isStopped()) {
+                    // Give up on every board not written out yet
+                    for (int lane = 0; lane < active; lane++) {
+                        solved[boardOf[lane]] = false;
+                    }
+                    for (int index = next; index < count; index++) {
+                        solved[index] = false;
+                    }
+                    break;
+                }
+                for (int lane = 0; lane < active; lane++) {
+                    placed[lane] = 0;
+                }
+                sweep(active);
+                placeSingles(active);
+
+                // Retire the lanes that are done or stuck, highest first so that the last lane can fill the gap
+                for (int lane = active - 1; lane >= 0; lane--) {
+                    if (placed[lane] > 0) {
+                        context.deduced(placed[lane]);
+                    }
+                    if (failed[lane] != 0 || empty[lane] == 0 || placed[lane] == 0) {
+                        if (retire(lane, boards, solved, context)) {
+                            total++;
+                        }
+                        if (next < count) {
+                            load(lane, boards, next++);
+                        } else if (lane != --active) {
+                            move(active, lane);
+                        }
+                    }
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Writes out the result of a lane, first finishing it with the delegate if the sweeps got stuck.
+         */
+        private boolean retire(int lane, Board[] boards, boolean[] solved, SearchContext context) {
+            Board board = boards[boardOf[lane]];
+            boolean result = false;
+            if (failed[lane] != 0) {
+                context.backtrack();
+            } else if (empty[lane] == 0) {
+                store(lane, board);
+                result = true;
+            } else {
+                store(lane, scratch);
+                if (delegate.solve(scratch, context)) {
+                    board.copyFrom(scratch);
+                    result = true;
+                }
+            }
+            solved[boardOf[lane]] = result;
+            return result;
+        }
+
+        private void load(int lane, Board[] boards, int index) {
+            Board board = boards[index];
+            boardOf[lane] = index;
+            empty[lane] = 0;
+            failed[lane] = 0;
+            for (int unit = 0; unit < geometry.getUnits(); unit++) {
+                used[unit * width + lane] = 0;
+            }
+            for (int cell = 0; cell < geometry.getCells(); cell++) {
+                int digit = board.get(cell);
+                int at = cell * width + lane;
+                digits[at] = (byte) digit;
+                if (digit == 0) {
+                    open[at] = -1L;
+                    empty[lane]++;
+                } else {
+                    open[at] = 0;
+                    long bit = 1L << (digit - 1);
+                    if (((used[rowBase[cell] + lane] | used[columnBase[cell] + lane]
+                            | used[boxBase[cell] + lane]) & bit) != 0) {
+                        failed[lane] = -1L;
+                    }
+                    used[rowBase[cell] + lane] |= bit;
+                    used[columnBase[cell] + lane] |= bit;
+                    used[boxBase[cell] + lane] |= bit;
+                }
+            }
+        }
+
+        private void move(int from, int to) {
+            for (int cell = 0; cell < geometry.getCells(); cell++) {
+                digits[cell * width + to] = digits[cell * width + from];
+                open[cell * width + to] = open[cell * width + from];
+            }
+            for (int unit = 0; unit < geometry.getUnits(); unit++) {
+                used[unit * width + to] = used[unit * width + from];
+            }
+            boardOf[to] = boardOf[from];
+            empty[to] = empty[from];
+            failed[to] = failed[from];
+        }
+
+        /**
+         * Computes the candidates of every cell in every lane, 0 for filled cells, and the digits of every unit that
+         * fit a single cell. A lane with an empty cell that has no candidates left or with a digit that fits no cell of
+         * a unit has failed. Every loop over the lanes is free of branches.
+         */
+        private void sweep(int active) {
+            int cells = geometry.getCells();
+            for (int cell = 0; cell < cells; cell++) {
+                int base = cell * width;
+                int row = rowBase[cell];
+                int column = columnBase[cell];
+                int box = boxBase[cell];
+                for (int lane = 0; lane < active; lane++) {
+                    long bits = open[base + lane] & allDigits
+                            & ~(used[row + lane] | used[column + lane] | used[box + lane]);
+                    candidates[base + lane] = bits;
+                    // All ones for an empty cell without candidates
+                    failed[lane] |= open[base + lane] & ((bits - 1) & ~bits) >> 63;
+                }
+            }
+
+            for (int unit = 0; unit < geometry.getUnits(); unit++) {
+                int unitBase = unit * width;
+                for (int lane = 0; lane < active; lane++) {
+                    once[lane] = 0;
+                    twice[lane] = 0;
+                }
+                for (int cell : geometry.unit(unit)) {
+                    int base = cell * width;
+                    for (int lane = 0; lane < active; lane++) {
+                        long bits = candidates[base + lane];
+                        twice[lane] |= once[lane] & bits;
+                        once[lane] |= bits;
+                    }
+                }
+                for (int lane = 0; lane < active; lane++) {
+                    failed[lane] |= allDigits & ~used[unitBase + lane] & ~once[lane];
+                    hidden[unitBase + lane] = once[lane] & ~twice[lane];
+                }
+            }
+        }
+
+        /**
+         * Places every naked and hidden single found by the sweep. Digits placed earlier in the same pass are taken
+         * into account, a cell or unit they leave without room is found by the next sweep.
+         */
+        private void placeSingles(int active) {
+            int cells = geometry.getCells();
+            for (int cell = 0; cell < cells; cell++) {
+                int base = cell * width;
+                int row = rowBase[cell];
+                int column = columnBase[cell];
+                int box = boxBase[cell];
+                for (int lane = 0; lane < active; lane++) {
+                    // Leave out the digits placed earlier in this pass, which can turn more cells into singles
+                    long bits = candidates[base + lane] & ~(used[row + lane] | used[column + lane] | used[box + lane]);
+                    long rest = bits & (bits - 1);
+                    // The candidate when it is the only one, otherwise those that fit nowhere else in a unit
+                    long single = rest == 0 ? bits
+                            : bits & (hidden[row + lane] | hidden[column + lane] | hidden[box + lane]);
+                    if (single == 0 || failed[lane] != 0) {
+                        continue;
+                    }
+                    long bit = single & -single;
+                    digits[base + lane] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+                    open[base + lane] = 0;
+                    used[row + lane] |= bit;
+                    used[column + lane] |= bit;
+                    used[box + lane] |= bit;
+                    empty[lane]--;
+                    placed[lane]++;
+                }
+            }
+        }
+
+        private void store(int lane, Board board) {
+            int cells = geometry.getCells();
+            for (int cell = 0; cell < cells; cell++) {
+                board.set(cell, digits[cell * width + lane]);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+
+/**
+ * Branches on the most constrained empty cell, the one with the fewest candidate digits left. Failing early on the
+ * tightest cell keeps the search tree far smaller than scanning in a fixed order.
+ *
+ * @author Matthew Lillie
+ */
+public class MinimumRemainingValuesHeuristic implements BranchHeuristic {
+
+    @Override
+    public int selectCell(CandidateState state) {
+        Board board = state.getBoard();
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int cells = state.getGeometry().getCells();
+        for (int index = 0; index < cells; index++) {
+            if (board.get(index) != 0) {
+                continue;
+            }
+            int count = Long.bitCount(state.candidates(index));
+            if (count < bestCount) {
+                best = index;
+                bestCount = count;
+                // Nothing can beat a dead end or a forced cell.
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -1,130 +1,263 @@
 package main.solvers;
 
-import main.Puzzle;
-import main.PuzzleHelpers;
+import main.board.Board;
+import main.board.CandidateState;
 
-import javax.swing.*;
-import java.awt.*;
-import java.util.concurrent.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Solves a sudoku puzzle using Java's thread pool executor service.
- * Will submit new threads to a thread pool in order to slightly speed up the process of solving the puzzle.
+ * Solves a sudoku puzzle using a work-stealing ForkJoinPool.
+ * Near the top of the search tree the solver splits off the other candidates of a cell as new tasks, each working on
+ * its own copy of the board, while the current thread carries on with the first candidate. Idle threads steal those
+ * tasks, and as soon as any task finds a solution every other task stops.
  *
  * @author Matthew Lillie
  */
 public class ParallelBacktrackingSolver implements Solver {
 
     /**
-     * Number of threads to use for sorting.
+     * Default number of guesses deep the search may still split into new tasks.
      */
-    private final int numberThreads;
+    public static final int DEFAULT_SPLIT_DEPTH = 8;
 
     /**
-     * Thread pool used for executing sorting Runnables.
+     * Tasks are only split off while the current worker has at most this many tasks queued that nobody stole yet.
      */
-    private final ExecutorService threadPool;
+    private static final int SURPLUS_THRESHOLD = 2;
+
+    /**
+     * Pool the search tasks run in.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Heuristic used to pick the cell to branch on.
+     */
+    private final BranchHeuristic heuristic;
+
+    /**
+     * Propagator applied at every search node.
+     */
+    private final Propagator propagator;
+
+    /**
+     * Number of guesses deep the search may still split into new tasks.
+     */
+    private final int splitDepth;
+
+    /**
+     * Construct a new solver using a given number of threads, branching heuristic, propagator and split depth.
+     *
+     * @param numberThreads The number of threads in the pool
+     * @param heuristic     The heuristic used to pick the cell to branch on
+     * @param propagator    The propagator applied at every search node
+     * @param splitDepth    The number of guesses deep the search may still split into new tasks
+     */
+    public ParallelBacktrackingSolver(int numberThreads, BranchHeuristic heuristic, Propagator propagator, int splitDepth) {
+        this(new ForkJoinPool(numberThreads), heuristic, propagator, splitDepth);
+    }
+
+    /**
+     * Construct a new solver running in a given pool, which lets several solvers share one set of threads.
+     *
+     * @param pool       The pool the search tasks run in
+     * @param heuristic  The heuristic used to pick the cell to branch on
+     * @param propagator The propagator applied at every search node
+     * @param splitDepth The number of guesses deep the search may still split into new tasks
+     */
+    public ParallelBacktrackingSolver(ForkJoinPool pool, BranchHeuristic heuristic, Propagator propagator,
+                                      int splitDepth) {
+        this.pool = pool;
+        this.heuristic = heuristic;
+        this.propagator = propagator;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Construct a new solver using a given number of threads, branching heuristic and propagator.
+     *
+     * @param numberThreads The number of threads in the pool
+     * @param heuristic     The heuristic used to pick the cell to branch on
+     * @param propagator    The propagator applied at every search node
+     */
+    public ParallelBacktrackingSolver(int numberThreads, BranchHeuristic heuristic, Propagator propagator) {
+        this(numberThreads, heuristic, propagator, DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Construct a new solver using a given number of threads and branching heuristic.
+     *
+     * @param numberThreads The number of threads in the pool
+     * @param heuristic     The heuristic used to pick the cell to branch on
+     */
+    public ParallelBacktrackingSolver(int numberThreads, BranchHeuristic heuristic) {
+        this(numberThreads, heuristic, new Propagator(PropagationLevel.SINGLES));
+    }
 
     /**
      * Construct a new solver using a given number of threads.
      *
-     * @param numberThreads The number of thread pools to have available.
+     * @param numberThreads The number of threads in the pool
      */
     public ParallelBacktrackingSolver(int numberThreads) {
-        this.numberThreads = numberThreads;
-        this.threadPool = Executors.newFixedThreadPool(numberThreads);
+        this(numberThreads, new MinimumRemainingValuesHeuristic());
     }
 
     /**
      * Construct a new solver using however many processors are available.
      */
     public ParallelBacktrackingSolver() {
-        this.numberThreads = Runtime.getRuntime().availableProcessors();
-        this.threadPool = Executors.newFixedThreadPool(numberThreads);
+        this(Runtime.getRuntime().availableProcessors());
     }
 
 
     @Override
-    public boolean solve(Puzzle puzzle) {
-        try {
-            MTSolver solver = new MTSolver(puzzle);
-            Future<Boolean> completed = threadPool.submit(solver);
-            if (completed.get()) {
-                System.out.println("Successfully found solution using multi-threaded backtracking!");
-                return true;
-            } else {
-                System.out.println("Failed to find a solution using multi-threaded backtracking!");
-                return false;
+    public boolean solve(Board board, SearchContext context) {
+        CandidateState state = new CandidateState(board.copy());
+        Search search = new Search(context);
+        if (state.isConsistent()) {
+            pool.invoke(new SplitTask(state, 0, search, null));
+        }
+
+        Board solution = search.solution.get();
+        if (solution == null) {
+            return false;
+        }
+        board.copyFrom(solution);
+        return true;
+    }
+
+    /**
+     * State shared by every task of one solve.
+     */
+    private static class Search {
+
+        private final SearchContext context;
+        private final AtomicReference<Board> solution = new AtomicReference<>();
+        private volatile boolean done;
+
+        Search(SearchContext context) {
+            this.context = context;
+        }
+
+        void found(Board board) {
+            if (solution.compareAndSet(null, board.copy())) {
+                done = true;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return false;
     }
 
     /**
-     * Callable class that takes in the puzzle we are attempting to solve.
+     * Task that searches the subtree below its own copy of the board.
      */
-    private class MTSolver implements Callable<Boolean> {
+    private class SplitTask extends RecursiveAction {
 
-        private final Puzzle puzzle;
+        private final CandidateState state;
+        private final int depth;
+        private final Search search;
+        // Thread that forked this task, null for the root task
+        private final Thread forker;
 
-        MTSolver(Puzzle puzzle) {
-            this.puzzle = puzzle;
+        SplitTask(CandidateState state, int depth, Search search, Thread forker) {
+            this.state = state;
+            this.depth = depth;
+            this.search = search;
+            this.forker = forker;
         }
 
         @Override
-        public Boolean call() throws Exception {
-            if (PuzzleHelpers.isFinished(puzzle.getCurrentBoard())) {
+        protected void compute() {
+            if (forker != null && forker != Thread.currentThread()) {
+                search.context.stolen();
+            }
+            boolean work = search.context.beginWork();
+            try {
+                backtracking(depth);
+            } finally {
+                search.context.endWork(work);
+            }
+        }
+
+        private boolean backtracking(int depth) {
+            if (search.done) {
+                return false;
+            }
+            search.context.node();
+            // A stopped search gives up in every task
+            if (search.context.isStopped() || !propagator.propagate(state, search.context)) {
+                return false;
+            }
+            if (search.context.isProgressWanted()) {
+                search.context.progress(state.getBoard());
+            }
+            if (state.isFinished()) {
+                search.found(state.getBoard());
                 return true;
             }
 
-            for (int x = 0; x < Puzzle.NUMBER_OF_SQUARES; x++) {
-                for (int y = 0; y < Puzzle.NUMBER_OF_SQUARES; y++) {
-                    if (puzzle.getCurrentBoard()[x][y].getValue() == 0) {
-                        for (int n = 1; n <= Puzzle.NUMBER_OF_SQUARES; n++) {
-                            if (PuzzleHelpers.checkValid(puzzle.getCurrentBoard(), x, y, n)) {
-                                puzzle.getCurrentBoard()[x][y].setValue(n);
-                                puzzle.getCurrentBoard()[x][y].setColor(Color.RED);
-                                SwingUtilities.invokeLater(puzzle::repaint);
-
-                                // Check if the pool is full and continue sequentially, otherwise submit a new thread to the solver.
-                                // This will increase speed so we do not have to wait for a thread to be open.
-                                if (isPoolFull()) {
-                                    if (call()) {
-                                        return true;
-                                    } else {
-                                        puzzle.getCurrentBoard()[x][y].setValue(0);
-                                        puzzle.getCurrentBoard()[x][y].setColor(Color.BLACK);
-                                    }
-                                } else {
-                                    MTSolver nextSolver = new MTSolver(puzzle);
-                                    Future<Boolean> finished = threadPool.submit(nextSolver);
-                                    if (finished.get()) {
-                                        return true;
-                                    } else {
-                                        puzzle.getCurrentBoard()[x][y].setValue(0);
-                                        puzzle.getCurrentBoard()[x][y].setColor(Color.BLACK);
-                                    }
-                                }
-
-                            }
-                        }
-                        return false;
-                    }
+            int index = heuristic.selectCell(state);
+            long candidates = state.candidates(index);
+            if (depth < splitDepth && Long.bitCount(candidates) > 1 && getSurplusQueuedTaskCount() <= SURPLUS_THRESHOLD) {
+                return split(index, candidates, depth);
+            }
+
+            boolean guessing = Long.bitCount(candidates) > 1;
+            while (candidates != 0) {
+                long bit = heuristic.selectValue(state, index, candidates);
+                candidates ^= bit;
+                if (guessing) {
+                    search.context.guess(depth);
+                }
+                int mark = state.mark();
+                state.place(index, CandidateState.digit(bit));
+                if (backtracking(depth + 1)) {
+                    return true;
                 }
+                state.undo(mark);
+                search.context.backtrack();
             }
-            return true;
+            return false;
         }
-    }
 
-    /**
-     * Determines if the pools are all currently being used.
-     *
-     * @return True if all the pools are full
-     */
-    private synchronized boolean isPoolFull() {
-        ThreadPoolExecutor e = (ThreadPoolExecutor) threadPool;
-        return e.getActiveCount() == e.getMaximumPoolSize();
+        /**
+         * Forks a task with a copy of the board for every candidate but the one the heuristic tries first, then
+         * continues with that candidate on this thread. The other candidates are forked in the order the heuristic
+         * picks them.
+         */
+        private boolean split(int index, long candidates, int depth) {
+            long first = heuristic.selectValue(state, index, candidates);
+            List<SplitTask> forked = new ArrayList<>(Long.bitCount(candidates) - 1);
+            Thread current = Thread.currentThread();
+            for (long rest = candidates ^ first; rest != 0; ) {
+                long bit = heuristic.selectValue(state, index, rest);
+                rest ^= bit;
+                CandidateState nextState = state.copy();
+                nextState.place(index, CandidateState.digit(bit));
+                SplitTask task = new SplitTask(nextState, depth + 1, search, current);
+                task.fork();
+                forked.add(task);
+            }
+            search.context.forked(forked.size());
+            // Every candidate of the cell is a guess, whichever thread ends up trying it
+            for (int i = 0; i <= forked.size(); i++) {
+                search.context.guess(depth);
+            }
+
+            int mark = state.mark();
+            state.place(index, CandidateState.digit(first));
+            backtracking(depth + 1);
+            state.undo(mark);
+
+            // Run whatever nobody stole yet in the order the heuristic picked, the shared flag makes them return at
+            // once after a solution
+            for (SplitTask task : forked) {
+                task.join();
+            }
+            return search.done;
+        }
     }
 }
@@ -0,0 +1,224 @@
+package main.solvers;
+
+import main.board.Board;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Races several strategies against each other on the same puzzle, each on its own thread and its own copy of the
+ * board. The first strategy to finish decides, with a solution or with the proof that there is none, and every other
+ * strategy is cancelled through its {@link SearchContext#child() child context}. Since different strategies blow up
+ * on different puzzles, the race costs more CPU than any single strategy but cuts the worst case to the best of them.
+ * <p>
+ * A solve returns as soon as the race is decided. The losers are cancelled then but may still be winding down on
+ * their threads, so their last few nodes can reach the statistics of the context after it returned. Stopping the
+ * context stops every strategy. The number of races every strategy won is kept for tuning the portfolio.
+ * <p>
+ * Races run on an executor shared by every caller. Unless one is given, the solver keeps a thread for every strategy
+ * of as many solves at once as there are callers, by default one per core, so that callers sharing one portfolio do
+ * not queue behind each other, and {@link #close()} stops them.
+ *
+ * @author Matthew Lillie
+ */
+public class PortfolioSolver implements Solver, AutoCloseable {
+
+    private final List<String> names;
+    private final List<Solver> strategies;
+    private final ExecutorService pool;
+    // Whether the pool was created here and is shut down by close
+    private final boolean ownPool;
+    private final AtomicLongArray wins;
+
+    /**
+     * Construct a new portfolio of scan order backtracking, most constrained cell first backtracking, dancing links
+     * and randomized restarts.
+     */
+    public PortfolioSolver() {
+        this(defaultStrategies());
+    }
+
+    /**
+     * Construct a new portfolio of given strategies, racing on threads of its own for one caller per core.
+     *
+     * @param strategies The strategies by name, raced in their iteration order
+     * @throws IllegalArgumentException If there are no strategies
+     */
+    public PortfolioSolver(Map<String, Solver> strategies) {
+        this(strategies, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new portfolio of given strategies, racing on threads of its own.
+     *
+     * @param strategies The strategies by name, raced in their iteration order
+     * @param callers    The most solves expected to run at once, which get a thread for every strategy
+     * @throws IllegalArgumentException If there are no strategies
+     */
+    public PortfolioSolver(Map<String, Solver> strategies, int callers) {
+        this(strategies, newPool(strategies.size() * Math.max(1, callers)), true);
+    }
+
+    /**
+     * Construct a new portfolio of given strategies, racing on a given executor. The executor needs a thread for
+     * every strategy of every solve running at once, and is left running by {@link #close()}.
+     *
+     * @param strategies The strategies by name, raced in their iteration order
+     * @param executor   The executor running the strategies
+     * @throws IllegalArgumentException If there are no strategies
+     */
+    public PortfolioSolver(Map<String, Solver> strategies, ExecutorService executor) {
+        this(strategies, executor, false);
+    }
+
+    private PortfolioSolver(Map<String, Solver> strategies, ExecutorService pool, boolean ownPool) {
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("A portfolio needs at least one strategy");
+        }
+        this.names = new ArrayList<>(strategies.keySet());
+        this.strategies = new ArrayList<>(strategies.values());
+        this.wins = new AtomicLongArray(strategies.size());
+        this.pool = pool;
+        this.ownPool = ownPool;
+    }
+
+    private static ExecutorService newPool(int size) {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, size), task -> {
+            Thread thread = new Thread(task, "portfolio-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Map<String, Solver> defaultStrategies() {
+        Map<String, Solver> strategies = new LinkedHashMap<>();
+        strategies.put("scan", new IterativeBacktrackingSolver(new ScanOrderHeuristic()));
+        strategies.put("mrv", new IterativeBacktrackingSolver());
+        strategies.put("dlx", new DancingLinksSolver());
+        strategies.put("restarts", new RestartingSolver());
+        return strategies;
+    }
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        Race race = new Race(strategies.size());
+        for (int i = 0; i < strategies.size(); i++) {
+            race.contexts[i] = context.child();
+        }
+        for (int i = 0; i < strategies.size(); i++) {
+            int strategy = i;
+            // Copied here, a strategy starting late would otherwise read the board while it is written back
+            Board copy = board.copy();
+            pool.execute(() -> race.run(strategy, strategies.get(strategy), copy, race.contexts[strategy]));
+        }
+
+        try {
+            race.decided.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Losers stop at their next node on their own threads, there is no need to wait for them
+        race.cancelAll();
+
+        if (race.winner < 0 && race.failure != null) {
+            throw new IllegalStateException("Strategy failed", race.failure);
+        }
+        if (race.winner < 0) {
+            return false;
+        }
+        wins.incrementAndGet(race.winner);
+        if (race.solution == null) {
+            return false;
+        }
+        board.copyFrom(race.solution);
+        return true;
+    }
+
+    /**
+     * @return The number of races every strategy won, by name in portfolio order
+     */
+    public Map<String, Long> getWins() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            result.put(names.get(i), wins.get(i));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Stops the threads of the portfolio once the races in progress are over, unless they came from an executor
+     * given to it.
+     */
+    @Override
+    public void close() {
+        if (ownPool) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PortfolioSolver" + getWins();
+    }
+
+    /**
+     * State of one solve shared by the strategies racing in it.
+     */
+    private static class Race {
+
+        private final SearchContext[] contexts;
+        // Counted down by the winner, or by the last strategy when all of them were stopped
+        private final CountDownLatch decided = new CountDownLatch(1);
+        private final AtomicInteger running;
+        private volatile int winner = -1;
+        private volatile Board solution;
+        private volatile Throwable failure;
+
+        Race(int strategies) {
+            this.contexts = new SearchContext[strategies];
+            this.running = new AtomicInteger(strategies);
+        }
+
+        void run(int strategy, Solver solver, Board board, SearchContext context) {
+            boolean work = context.beginWork();
+            try {
+                boolean solved = solver.solve(board, context);
+                // A strategy that was not stopped has either found a solution or proven there is none
+                if (solved || !context.isStopped()) {
+                    win(strategy, solved ? board : null);
+                }
+            } catch (RuntimeException | Error e) {
+                // Without a winner yet the solve reports the failure once every strategy is done
+                failure = e;
+            } finally {
+                context.endWork(work);
+                if (running.decrementAndGet() == 0) {
+                    decided.countDown();
+                }
+            }
+        }
+
+        private synchronized void win(int strategy, Board board) {
+            if (winner < 0) {
+                solution = board;
+                winner = strategy;
+                decided.countDown();
+            }
+        }
+
+        void cancelAll() {
+            for (SearchContext context : contexts) {
+                context.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package main.solvers;
+
+import main.board.Board;
+
+/**
+ * Observes a running search by sampling its board. Solvers poll {@link #isSnapshotWanted()} at every search node and
+ * only hand over their board when it returns true, so a listener decides how often it is called and a solve that is
+ * not being watched pays for nothing more than that check.
+ * <p>
+ * Both methods are called from inside the search, possibly from several worker threads at once, and must return
+ * quickly.
+ *
+ * @author Matthew Lillie
+ */
+public interface ProgressListener {
+
+    /**
+     * @return True if the next search node should pass its board to {@link #snapshot(Board)}
+     */
+    public boolean isSnapshotWanted();
+
+    /**
+     * Receives the board as it stands at the current search node. The board keeps changing once this returns, so it
+     * has to be copied rather than kept.
+     *
+     * @param board The board of the search
+     */
+    public void snapshot(Board board);
+}
@@ -0,0 +1,30 @@
+package main.solvers;
+
+/**
+ * How much deduction a {@link Propagator} applies at every search node. Every level includes the techniques of the
+ * levels before it.
+ *
+ * @author Matthew Lillie
+ */
+public enum PropagationLevel {
+
+    /**
+     * Pure trial and error, nothing is deduced.
+     */
+    NONE,
+
+    /**
+     * Naked singles and hidden singles.
+     */
+    SINGLES,
+
+    /**
+     * Pointing and claiming box/line reductions.
+     */
+    INTERSECTIONS,
+
+    /**
+     * Naked pairs and hidden pairs.
+     */
+    PAIRS
+}
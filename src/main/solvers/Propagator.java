@@ -0,0 +1,665 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.board.Geometry;
+
+import java.util.Arrays;
+
+/**
+ * Deduces forced placements and candidate eliminations on a {@link CandidateState} using the same techniques a human
+ * solver would, so that easy puzzles are finished without any guessing and hard ones branch far less.
+ * <p>
+ * Every change is made through the state and therefore recorded on its trail, which lets a search undo a failed
+ * propagation together with the placement that triggered it. Each technique can also be applied on its own and reports
+ * the number of changes it made or {@link #CONTRADICTION}. The larger subsets, fish and coloring are not part of any
+ * {@link PropagationLevel} since they rarely pay for themselves during a search, but they are used to rate puzzles.
+ *
+ * @author Matthew Lillie
+ */
+public class Propagator {
+
+    /**
+     * Returned by a technique when the board can no longer be solved.
+     */
+    public static final int CONTRADICTION = -1;
+
+    private final PropagationLevel level;
+
+    /**
+     * Construct a new propagator applying techniques up to a given level.
+     *
+     * @param level The most advanced techniques to apply
+     */
+    public Propagator(PropagationLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Applies every technique up to the configured level until none of them makes progress, always retrying the
+     * simpler techniques first once something has changed.
+     *
+     * @param state The state to propagate
+     * @return False if a contradiction was found otherwise True
+     */
+    public boolean propagate(CandidateState state) {
+        return propagate(state, null);
+    }
+
+    /**
+     * Propagates like {@link #propagate(CandidateState)} and records every deduction made in a search context.
+     *
+     * @param state   The state to propagate
+     * @param context The context to record the deductions in, or null
+     * @return False if a contradiction was found otherwise True
+     */
+    public boolean propagate(CandidateState state, SearchContext context) {
+        if (level == PropagationLevel.NONE) {
+            return true;
+        }
+        while (!state.isFinished()) {
+            int result = nakedSingles(state);
+            if (result == 0) {
+                result = hiddenSingles(state);
+            }
+            if (result == 0 && level.compareTo(PropagationLevel.INTERSECTIONS) >= 0) {
+                result = pointing(state);
+                if (result == 0) {
+                    result = claiming(state);
+                }
+            }
+            if (result == 0 && level.compareTo(PropagationLevel.PAIRS) >= 0) {
+                result = nakedPairs(state);
+                if (result == 0) {
+                    result = hiddenPairs(state);
+                }
+            }
+            if (result == CONTRADICTION) {
+                return false;
+            }
+            if (result == 0) {
+                return true;
+            }
+            if (context != null) {
+                context.deduced(result);
+            }
+        }
+        return true;
+    }
+
+    public PropagationLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Fills every empty cell that only has a single candidate left.
+     *
+     * @param state The state to work on
+     * @return The number of cells filled or {@link #CONTRADICTION} if a cell has no candidates
+     */
+    public static int nakedSingles(CandidateState state) {
+        Board board = state.getBoard();
+        int cellCount = state.getGeometry().getCells();
+        int placed = 0;
+        for (int index = 0; index < cellCount; index++) {
+            if (board.get(index) != 0) {
+                continue;
+            }
+            long candidates = state.candidates(index);
+            if (candidates == 0) {
+                return CONTRADICTION;
+            }
+            if ((candidates & (candidates - 1)) == 0) {
+                state.place(index, CandidateState.digit(candidates));
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Fills every cell that is the only place left for a digit within one of its units.
+     *
+     * @param state The state to work on
+     * @return The number of cells filled or {@link #CONTRADICTION} if a digit has nowhere left to go
+     */
+    public static int hiddenSingles(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int placed = 0;
+        for (int unit = 0; unit < geometry.getUnits(); unit++) {
+            int[] cells = geometry.unit(unit);
+            long once = 0;
+            long twice = 0;
+            for (int cell : cells) {
+                if (board.get(cell) == 0) {
+                    long candidates = state.candidates(cell);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+            }
+            if ((once | state.usedInUnit(unit)) != state.getAllDigits()) {
+                return CONTRADICTION;
+            }
+            long hidden = once & ~twice;
+            while (hidden != 0) {
+                long bit = hidden & -hidden;
+                hidden ^= bit;
+                // An earlier single in this unit may have taken the only cell this digit had.
+                int target = findCandidate(state, cells, bit);
+                if (target < 0) {
+                    return CONTRADICTION;
+                }
+                state.place(target, CandidateState.digit(bit));
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Removes a digit from the rest of a row or column when all of its candidates within a box lie on that line.
+     *
+     * @param state The state to work on
+     * @return The number of cells that lost candidates
+     */
+    public static int pointing(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int size = geometry.getSize();
+        int changed = 0;
+        for (int box = 0; box < size; box++) {
+            int[] cells = geometry.box(box);
+            long open = ~state.usedInUnit(size * 2 + box) & state.getAllDigits();
+            while (open != 0) {
+                long bit = open & -open;
+                open ^= bit;
+                long rows = 0;
+                long columns = 0;
+                for (int cell : cells) {
+                    if (board.get(cell) == 0 && (state.candidates(cell) & bit) != 0) {
+                        rows |= 1L << geometry.rowOf(cell);
+                        columns |= 1L << geometry.columnOf(cell);
+                    }
+                }
+                if (Long.bitCount(rows) == 1) {
+                    changed += eliminateOutsideBox(state, geometry.row(Long.numberOfTrailingZeros(rows)), box, bit);
+                }
+                if (Long.bitCount(columns) == 1) {
+                    changed += eliminateOutsideBox(state, geometry.column(Long.numberOfTrailingZeros(columns)), box, bit);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes a digit from the rest of a box when all of its candidates within a row or column lie in that box.
+     *
+     * @param state The state to work on
+     * @return The number of cells that lost candidates
+     */
+    public static int claiming(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int changed = 0;
+        for (int line = 0; line < geometry.getSize() * 2; line++) {
+            int[] cells = geometry.unit(line);
+            long open = ~state.usedInUnit(line) & state.getAllDigits();
+            while (open != 0) {
+                long bit = open & -open;
+                open ^= bit;
+                long boxes = 0;
+                for (int cell : cells) {
+                    if (board.get(cell) == 0 && (state.candidates(cell) & bit) != 0) {
+                        boxes |= 1L << geometry.boxOf(cell);
+                    }
+                }
+                if (Long.bitCount(boxes) == 1) {
+                    int box = Long.numberOfTrailingZeros(boxes);
+                    for (int cell : geometry.box(box)) {
+                        if (board.get(cell) == 0 && !onLine(geometry, cell, line) && state.eliminate(cell, bit)) {
+                            changed++;
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the digits of two cells that share the same two candidates from every other cell of their unit.
+     *
+     * @param state The state to work on
+     * @return The number of cells that lost candidates
+     */
+    public static int nakedPairs(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int changed = 0;
+        for (int unit = 0; unit < geometry.getUnits(); unit++) {
+            int[] cells = geometry.unit(unit);
+            for (int i = 0; i < cells.length; i++) {
+                if (board.get(cells[i]) != 0) {
+                    continue;
+                }
+                long pair = state.candidates(cells[i]);
+                if (Long.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < cells.length; j++) {
+                    if (board.get(cells[j]) != 0 || state.candidates(cells[j]) != pair) {
+                        continue;
+                    }
+                    for (int k = 0; k < cells.length; k++) {
+                        if (k != i && k != j && board.get(cells[k]) == 0 && state.eliminate(cells[k], pair)) {
+                            changed++;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes every other candidate from two cells that are the only places left for the same two digits in a unit.
+     *
+     * @param state The state to work on
+     * @return The number of cells that lost candidates
+     */
+    public static int hiddenPairs(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int size = geometry.getSize();
+        long[] positions = new long[size];
+        int changed = 0;
+        for (int unit = 0; unit < geometry.getUnits(); unit++) {
+            int[] cells = geometry.unit(unit);
+            // Positions within the unit where each digit can still go
+            for (int digit = 0; digit < size; digit++) {
+                positions[digit] = 0;
+            }
+            for (int i = 0; i < cells.length; i++) {
+                if (board.get(cells[i]) != 0) {
+                    continue;
+                }
+                long candidates = state.candidates(cells[i]);
+                while (candidates != 0) {
+                    long bit = candidates & -candidates;
+                    candidates ^= bit;
+                    positions[Long.numberOfTrailingZeros(bit)] |= 1L << i;
+                }
+            }
+            for (int first = 0; first < size; first++) {
+                if (Long.bitCount(positions[first]) != 2) {
+                    continue;
+                }
+                for (int second = first + 1; second < size; second++) {
+                    if (positions[second] != positions[first]) {
+                        continue;
+                    }
+                    long others = ~((1L << first) | (1L << second)) & state.getAllDigits();
+                    long cellPositions = positions[first];
+                    while (cellPositions != 0) {
+                        int position = Long.numberOfTrailingZeros(cellPositions);
+                        cellPositions &= cellPositions - 1;
+                        if (state.eliminate(cells[position], others)) {
+                            changed++;
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the digits of any number of cells that share that many candidates between them from every other cell
+     * of their unit, generalizing {@link #nakedPairs(CandidateState)} to triples and beyond.
+     *
+     * @param state The state to work on
+     * @param size  The number of cells and digits in the subset
+     * @return The number of cells that lost candidates
+     */
+    public static int nakedSubsets(CandidateState state, int size) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int[] open = new int[geometry.getSize()];
+        int changed = 0;
+        for (int unit = 0; unit < geometry.getUnits(); unit++) {
+            int[] cells = geometry.unit(unit);
+            int empty = 0;
+            int count = 0;
+            for (int cell : cells) {
+                if (board.get(cell) == 0) {
+                    empty++;
+                    int candidates = Long.bitCount(state.candidates(cell));
+                    if (candidates >= 2 && candidates <= size) {
+                        open[count++] = cell;
+                    }
+                }
+            }
+            if (empty > size) {
+                changed += nakedSubsets(state, cells, open, count, size, 0, 0, 0);
+            }
+        }
+        return changed;
+    }
+
+    private static int nakedSubsets(CandidateState state, int[] unit, int[] open, int count, int size, int start,
+                                    long chosen, long union) {
+        if (Long.bitCount(union) > size) {
+            return 0;
+        }
+        if (Long.bitCount(chosen) == size) {
+            int changed = 0;
+            for (int cell : unit) {
+                if (state.getBoard().get(cell) == 0 && !contains(open, chosen, cell) && state.eliminate(cell, union)) {
+                    changed++;
+                }
+            }
+            return changed;
+        }
+        int changed = 0;
+        for (int i = start; i < count; i++) {
+            changed += nakedSubsets(state, unit, open, count, size, i + 1, chosen | 1L << i,
+                    union | state.candidates(open[i]));
+        }
+        return changed;
+    }
+
+    private static boolean contains(int[] open, long chosen, int cell) {
+        for (; chosen != 0; chosen &= chosen - 1) {
+            if (open[Long.numberOfTrailingZeros(chosen)] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every other candidate from any number of cells that are the only places left for that many digits in
+     * a unit, generalizing {@link #hiddenPairs(CandidateState)} to triples and beyond.
+     *
+     * @param state The state to work on
+     * @param size  The number of cells and digits in the subset
+     * @return The number of cells that lost candidates
+     */
+    public static int hiddenSubsets(CandidateState state, int size) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        long[] positions = new long[geometry.getSize()];
+        int[] digits = new int[geometry.getSize()];
+        int changed = 0;
+        for (int unit = 0; unit < geometry.getUnits(); unit++) {
+            int[] cells = geometry.unit(unit);
+            Arrays.fill(positions, 0);
+            for (int i = 0; i < cells.length; i++) {
+                if (board.get(cells[i]) != 0) {
+                    continue;
+                }
+                for (long candidates = state.candidates(cells[i]); candidates != 0; candidates &= candidates - 1) {
+                    positions[Long.numberOfTrailingZeros(candidates)] |= 1L << i;
+                }
+            }
+            int count = 0;
+            int open = 0;
+            for (int digit = 0; digit < positions.length; digit++) {
+                int places = Long.bitCount(positions[digit]);
+                if (places > 0) {
+                    open++;
+                }
+                if (places >= 2 && places <= size) {
+                    digits[count++] = digit;
+                }
+            }
+            if (open > size) {
+                changed += hiddenSubsets(state, cells, positions, digits, count, size, 0, 0, 0);
+            }
+        }
+        return changed;
+    }
+
+    private static int hiddenSubsets(CandidateState state, int[] unit, long[] positions, int[] digits, int count,
+                                     int size, int start, long chosen, long union) {
+        if (Long.bitCount(union) > size) {
+            return 0;
+        }
+        if (Long.bitCount(chosen) == size) {
+            int changed = 0;
+            long others = ~chosen & state.getAllDigits();
+            for (long cells = union; cells != 0; cells &= cells - 1) {
+                if (state.eliminate(unit[Long.numberOfTrailingZeros(cells)], others)) {
+                    changed++;
+                }
+            }
+            return changed;
+        }
+        int changed = 0;
+        for (int i = start; i < count; i++) {
+            changed += hiddenSubsets(state, unit, positions, digits, count, size, i + 1, chosen | 1L << digits[i],
+                    union | positions[digits[i]]);
+        }
+        return changed;
+    }
+
+    /**
+     * Finds fish such as the X-Wing and the Swordfish: when a digit is confined to the same few columns within as
+     * many rows, it is removed from the rest of those columns, and the same with rows and columns swapped.
+     *
+     * @param state The state to work on
+     * @param size  The number of rows and columns of the fish, 2 for an X-Wing and 3 for a Swordfish
+     * @return The number of cells that lost candidates
+     */
+    public static int fish(CandidateState state, int size) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int lines = geometry.getSize();
+        long[] positions = new long[lines];
+        int[] bases = new int[lines];
+        int changed = 0;
+        for (long digits = state.getAllDigits(); digits != 0; digits &= digits - 1) {
+            long bit = digits & -digits;
+            for (int orientation = 0; orientation < 2; orientation++) {
+                boolean byRow = orientation == 0;
+                Arrays.fill(positions, 0);
+                for (int line = 0; line < lines; line++) {
+                    for (int cross = 0; cross < lines; cross++) {
+                        int cell = byRow ? geometry.index(cross, line) : geometry.index(line, cross);
+                        if (board.get(cell) == 0 && (state.candidates(cell) & bit) != 0) {
+                            positions[line] |= 1L << cross;
+                        }
+                    }
+                }
+                int count = 0;
+                for (int line = 0; line < lines; line++) {
+                    int places = Long.bitCount(positions[line]);
+                    if (places >= 2 && places <= size) {
+                        bases[count++] = line;
+                    }
+                }
+                changed += fish(state, bit, byRow, positions, bases, count, size, 0, 0, 0);
+            }
+        }
+        return changed;
+    }
+
+    private static int fish(CandidateState state, long bit, boolean byRow, long[] positions, int[] bases, int count,
+                            int size, int start, long chosen, long union) {
+        if (Long.bitCount(union) > size) {
+            return 0;
+        }
+        if (Long.bitCount(chosen) == size) {
+            Geometry geometry = state.getGeometry();
+            int changed = 0;
+            for (long covers = union; covers != 0; covers &= covers - 1) {
+                int cover = Long.numberOfTrailingZeros(covers);
+                for (int line = 0; line < geometry.getSize(); line++) {
+                    int cell = byRow ? geometry.index(cover, line) : geometry.index(line, cover);
+                    if ((chosen & 1L << line) == 0 && state.getBoard().get(cell) == 0 && state.eliminate(cell, bit)) {
+                        changed++;
+                    }
+                }
+            }
+            return changed;
+        }
+        int changed = 0;
+        for (int i = start; i < count; i++) {
+            changed += fish(state, bit, byRow, positions, bases, count, size, i + 1, chosen | 1L << bases[i],
+                    union | positions[bases[i]]);
+        }
+        return changed;
+    }
+
+    /**
+     * Simple coloring: the cells that are the only two places for a digit in some unit are linked, and every chain
+     * of such links is colored alternately, so that exactly one of the two colors holds the digit. A color that
+     * appears twice within a unit must be the false one, and a cell that sees both colors cannot hold the digit.
+     *
+     * @param state The state to work on
+     * @return The number of cells that lost candidates
+     */
+    public static int simpleColoring(CandidateState state) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int cellCount = geometry.getCells();
+        int units = geometry.getUnits();
+        int size = geometry.getSize();
+        // Color of every cell, 0 for none and otherwise 2 * chain + 1 or 2 * chain + 2
+        int[] colors = new int[cellCount];
+        int[] queue = new int[cellCount];
+        int[][] seen = new int[2][units];
+        int changed = 0;
+        for (long digits = state.getAllDigits(); digits != 0; digits &= digits - 1) {
+            long bit = digits & -digits;
+            Arrays.fill(colors, 0);
+            int chains = 0;
+            for (int start = 0; start < cellCount; start++) {
+                if (colors[start] != 0 || !hasCandidate(state, start, bit) || !isLinked(state, start, bit)) {
+                    continue;
+                }
+                // Color the chain through the units where a cell has a single partner
+                int base = 2 * chains++;
+                colors[start] = base + 1;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = start;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    for (int unit : unitsOf(geometry, cell)) {
+                        int partner = partner(state, geometry.unit(unit), cell, bit);
+                        if (partner >= 0 && colors[partner] == 0) {
+                            colors[partner] = colors[cell] == base + 1 ? base + 2 : base + 1;
+                            queue[tail++] = partner;
+                        }
+                    }
+                }
+
+                for (int[] counts : seen) {
+                    Arrays.fill(counts, 0);
+                }
+                for (int i = 0; i < tail; i++) {
+                    int cell = queue[i];
+                    for (int unit : unitsOf(geometry, cell)) {
+                        seen[colors[cell] - base - 1][unit]++;
+                    }
+                }
+                // Color wrap: a color twice in one unit is false everywhere
+                for (int color = 0; color < 2; color++) {
+                    boolean wrapped = false;
+                    for (int unit = 0; unit < units && !wrapped; unit++) {
+                        wrapped = seen[color][unit] > 1;
+                    }
+                    if (wrapped) {
+                        for (int i = 0; i < tail; i++) {
+                            if (colors[queue[i]] == base + 1 + color && state.eliminate(queue[i], bit)) {
+                                changed++;
+                            }
+                        }
+                        return changed;
+                    }
+                }
+                // Color trap: a cell outside the chain that sees both colors loses the digit
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (board.get(cell) != 0 || colors[cell] > base || !hasCandidate(state, cell, bit)) {
+                        continue;
+                    }
+                    boolean first = false;
+                    boolean second = false;
+                    for (int unit : unitsOf(geometry, cell)) {
+                        first |= seen[0][unit] > 0;
+                        second |= seen[1][unit] > 0;
+                    }
+                    if (first && second && state.eliminate(cell, bit)) {
+                        changed++;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean hasCandidate(CandidateState state, int cell, long bit) {
+        return state.getBoard().get(cell) == 0 && (state.candidates(cell) & bit) != 0;
+    }
+
+    private static boolean isLinked(CandidateState state, int cell, long bit) {
+        for (int unit : unitsOf(state.getGeometry(), cell)) {
+            if (partner(state, state.getGeometry().unit(unit), cell, bit) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the only other cell of a unit that can hold a digit, or -1 if there is none or more than one.
+     */
+    private static int partner(CandidateState state, int[] unit, int cell, long bit) {
+        int partner = -1;
+        for (int other : unit) {
+            if (other != cell && hasCandidate(state, other, bit)) {
+                if (partner >= 0) {
+                    return -1;
+                }
+                partner = other;
+            }
+        }
+        return partner;
+    }
+
+    private static int[] unitsOf(Geometry geometry, int cell) {
+        int size = geometry.getSize();
+        return new int[]{geometry.rowOf(cell), size + geometry.columnOf(cell), size * 2 + geometry.boxOf(cell)};
+    }
+
+    private static int findCandidate(CandidateState state, int[] cells, long bit) {
+        Board board = state.getBoard();
+        for (int cell : cells) {
+            if (board.get(cell) == 0 && (state.candidates(cell) & bit) != 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private static int eliminateOutsideBox(CandidateState state, int[] line, int box, long bit) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int changed = 0;
+        for (int cell : line) {
+            if (geometry.boxOf(cell) != box && board.get(cell) == 0 && state.eliminate(cell, bit)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean onLine(Geometry geometry, int cell, int line) {
+        int size = geometry.getSize();
+        return line < size ? geometry.rowOf(cell) == line : geometry.columnOf(cell) == line - size;
+    }
+}
@@ -0,0 +1,87 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+
+/**
+ * Branches on the most constrained empty cell like {@link MinimumRemainingValuesHeuristic}, but breaks ties between
+ * equally constrained cells and orders the candidates of a cell pseudo-randomly. The order is a hash of the cell and
+ * digit mixed with a seed rather than drawn from a random generator, so it does not depend on which thread asks or
+ * in what order: the same seed always gives the same search, sequential or parallel.
+ *
+ * @author Matthew Lillie
+ */
+public class RandomizedHeuristic implements BranchHeuristic {
+
+    // Constants
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    /**
+     * Construct a new heuristic.
+     *
+     * @param seed The seed of the order, every seed giving a different one
+     */
+    public RandomizedHeuristic(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public int selectCell(CandidateState state) {
+        Board board = state.getBoard();
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        long bestKey = 0;
+        int cells = state.getGeometry().getCells();
+        for (int index = 0; index < cells; index++) {
+            if (board.get(index) != 0) {
+                continue;
+            }
+            int count = Long.bitCount(state.candidates(index));
+            if (count > bestCount) {
+                continue;
+            }
+            long key = mix(seed + index * GOLDEN_GAMMA);
+            if (count < bestCount || key < bestKey) {
+                best = index;
+                bestCount = count;
+                bestKey = key;
+                // Nothing can beat a dead end
+                if (count == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public long selectValue(CandidateState state, int index, long candidates) {
+        long best = 0;
+        long bestKey = Long.MAX_VALUE;
+        long salt = seed + index * GOLDEN_GAMMA;
+        for (long rest = candidates; rest != 0; rest &= rest - 1) {
+            long bit = rest & -rest;
+            long key = mix(salt ^ bit);
+            if (best == 0 || key < bestKey) {
+                best = bit;
+                bestKey = key;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The SplitMix64 finalizer, turning consecutive inputs into unrelated outputs.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,137 @@
+package main.solvers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import main.board.Board;
+
+/**
+ * Runs a backtracking search again and again with a different {@link RandomizedHeuristic} each time, giving every
+ * run a budget of search nodes from the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ... times a unit. Backtracking
+ * times on hard puzzles are heavy tailed: one bad early branch can cost orders of magnitude more than the typical
+ * run. Restarting cuts such runs short, while the budgets that keep doubling make sure a puzzle that needs a long run
+ * still gets one, so the total effort stays within a logarithmic factor of the best fixed budget.
+ * <p>
+ * The seed of run n is derived from the seed of the solver and n alone, so a given seed always repeats the same runs.
+ * With the sequential solver the whole solve is then deterministic. The parallel solver makes the same choices in
+ * every run, but where a run is cut off depends on how its threads happen to be scheduled.
+ *
+ * @author Matthew Lillie
+ */
+public class RestartingSolver implements Solver {
+
+    /**
+     * Seed used when none is given.
+     */
+    public static final long DEFAULT_SEED = 0;
+
+    /**
+     * Nodes of search a run gets per step of the Luby sequence when not given.
+     */
+    public static final int DEFAULT_UNIT = 128;
+
+    private final Function<BranchHeuristic, Solver> solvers;
+    private final long seed;
+    private final int unit;
+
+    /**
+     * Construct a new solver restarting sequential backtracking from the default seed.
+     */
+    public RestartingSolver() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Construct a new solver restarting sequential backtracking.
+     *
+     * @param seed The seed of the runs
+     */
+    public RestartingSolver(long seed) {
+        this(SequentialBacktrackingSolver::new, seed);
+    }
+
+    /**
+     * Construct a new solver restarting the solvers built by a factory.
+     *
+     * @param solvers Builds the solver of a run from its heuristic
+     * @param seed    The seed of the runs
+     */
+    public RestartingSolver(Function<BranchHeuristic, Solver> solvers, long seed) {
+        this(solvers, seed, DEFAULT_UNIT);
+    }
+
+    /**
+     * Construct a new solver restarting the solvers built by a factory.
+     *
+     * @param solvers Builds the solver of a run from its heuristic
+     * @param seed    The seed of the runs
+     * @param unit    The nodes a run gets per step of the Luby sequence
+     */
+    public RestartingSolver(Function<BranchHeuristic, Solver> solvers, long seed, int unit) {
+        if (unit < 1) {
+            throw new IllegalArgumentException("Unit must be positive: " + unit);
+        }
+        this.solvers = solvers;
+        this.seed = seed;
+        this.unit = unit;
+    }
+
+    /**
+     * Creates a solver restarting parallel backtracking. The runs of every such solver share one pool of threads,
+     * created the first time it is needed, whose daemon threads never hold up the JVM from exiting.
+     *
+     * @param seed The seed of the runs
+     * @return The solver
+     */
+    public static RestartingSolver parallel(long seed) {
+        Propagator propagator = new Propagator(PropagationLevel.SINGLES);
+        return new RestartingSolver(heuristic -> new ParallelBacktrackingSolver(SharedPool.POOL, heuristic,
+                propagator, ParallelBacktrackingSolver.DEFAULT_SPLIT_DEPTH), seed);
+    }
+
+    /**
+     * Holds the pool of the parallel solvers, so it is only created once one of them solves a puzzle.
+     */
+    private static class SharedPool {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public boolean solve(Board board, SearchContext context) {
+        for (int run = 1; ; run++) {
+            // The budget counts the nodes of this run alone, whatever else shares the counters of the context
+            SearchContext attempt = context.childWithOwnNodeCount();
+            attempt.setNodeBudget(luby(run) * unit);
+            Solver solver = solvers.apply(new RandomizedHeuristic(RandomizedHeuristic.mix(seed + run)));
+            if (solver.solve(board, attempt)) {
+                return true;
+            }
+            // Only a run cut off by its own budget is worth restarting, any other failure is final
+            if (context.isStopped() || attempt.getStopReason() != SearchStatus.BUDGET_EXCEEDED) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Gets a term of the Luby sequence: 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+     *
+     * @param i The position in the sequence, from 1
+     * @return The term, always a power of two
+     */
+    public static long luby(int i) {
+        while (true) {
+            // Smallest k with 2^k - 1 >= i
+            int k = 32 - Integer.numberOfLeadingZeros(i);
+            if ((1 << k) - 1 == i) {
+                return 1L << (k - 1);
+            }
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,35 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+import main.board.Geometry;
+
+/**
+ * Branches on the first empty cell in fixed column by column scan order, which is how the solvers originally picked
+ * their cells. Given the cell the level above branched on, the scan carries on from there rather than from the first
+ * cell.
+ *
+ * @author Matthew Lillie
+ */
+public class ScanOrderHeuristic implements BranchHeuristic {
+
+    @Override
+    public int selectCell(CandidateState state) {
+        return selectCell(state, -1);
+    }
+
+    @Override
+    public int selectCell(CandidateState state, int previous) {
+        Board board = state.getBoard();
+        Geometry geometry = state.getGeometry();
+        int size = geometry.getSize();
+        int from = previous < 0 ? 0 : geometry.columnOf(previous) * size + geometry.rowOf(previous);
+        for (int position = from; position < size * size; position++) {
+            int index = geometry.index(position / size, position % size);
+            if (board.get(index) == 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,408 @@
+package main.solvers;
+
+import main.board.Board;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-solve context handed through a solver's search. Counts the search nodes visited, the guesses made, the
+ * deductions of propagation, the branches that had to be undone and, for the parallel solvers, the tasks forked and
+ * stolen, so that heuristics can be compared on the same inputs. It also passes samples of the board to an optional
+ * {@link ProgressListener}.
+ * <p>
+ * The counters may be updated from several threads. They are striped per thread and only summed when read, so
+ * counting costs the search next to nothing even when every worker of a pool updates them. Once
+ * {@link #measureCpuTime()} is called, the CPU time of every thread working on the search is added up the same way:
+ * each one brackets its share of the work with {@link #beginWork()} and {@link #endWork(boolean)}.
+ * <p>
+ * A context can also bound the search: with a deadline, a budget of nodes or by being {@link #cancel() cancelled}
+ * from another thread. Solvers check {@link #isStopped()} at every node, a single volatile read, and give up without
+ * a solution once it is set, in every task of a parallel search at once. The deadline and the budget are only checked
+ * every {@value #CHECK_INTERVAL} nodes, or as often as the budget is small, so a search may run a little past
+ * either.
+ * <p>
+ * A {@link #child()} context shares the counters of its parent and is stopped whenever its parent is, but can also
+ * be stopped on its own, which lets a solver run several searches under one context and cancel some of them. A
+ * {@link #childWithOwnNodeCount()} also keeps a count of the nodes of its own search, which its node budget applies
+ * to, so that searches running beside it do not use up its budget.
+ *
+ * @author Matthew Lillie
+ */
+public class SearchContext {
+
+    /**
+     * Number of nodes between two checks of the deadline and the node budget.
+     */
+    public static final int CHECK_INTERVAL = 64;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final ThreadLocal<Work> WORK = ThreadLocal.withInitial(Work::new);
+
+    private final LongAdder nodes;
+    private final LongAdder backtracks;
+    private final LongAdder guesses;
+    private final LongAdder deductions;
+    private final LongAdder forked;
+    private final LongAdder stolen;
+    private final LongAccumulator maxDepth;
+    // Nodes of this context and its children alone, null if the budget applies to the shared count
+    private final LongAdder ownNodes;
+    // CPU time of the threads working on the search, null unless it is measured
+    private LongAdder cpuTime;
+    private final ProgressListener listener;
+    // Context this one was created from, null for a top level context
+    private final SearchContext parent;
+    // Deadline as a System.nanoTime value and node budget, 0 for none
+    private long deadline;
+    private long nodeBudget;
+    private boolean limited;
+    private int checkInterval = CHECK_INTERVAL;
+    // Nodes since the last check, updated without synchronization since an occasional lost count does not matter
+    private int unchecked;
+    private volatile SearchStatus stopReason;
+
+    /**
+     * Construct a new context without a progress listener.
+     */
+    public SearchContext() {
+        this((ProgressListener) null);
+    }
+
+    /**
+     * Construct a new context reporting progress to a listener.
+     *
+     * @param listener The listener sampling the board of the search, or null for none
+     */
+    public SearchContext(ProgressListener listener) {
+        this.nodes = new LongAdder();
+        this.backtracks = new LongAdder();
+        this.guesses = new LongAdder();
+        this.deductions = new LongAdder();
+        this.forked = new LongAdder();
+        this.stolen = new LongAdder();
+        this.maxDepth = new LongAccumulator(Math::max, 0);
+        this.listener = listener;
+        this.parent = null;
+        this.ownNodes = null;
+    }
+
+    private SearchContext(SearchContext parent, boolean ownNodes) {
+        this.nodes = parent.nodes;
+        this.backtracks = parent.backtracks;
+        this.guesses = parent.guesses;
+        this.deductions = parent.deductions;
+        this.forked = parent.forked;
+        this.stolen = parent.stolen;
+        this.maxDepth = parent.maxDepth;
+        this.cpuTime = parent.cpuTime;
+        this.listener = null;
+        this.parent = parent;
+        this.ownNodes = ownNodes ? new LongAdder() : null;
+    }
+
+    /**
+     * Creates a context for one of several searches run under this one. Everything the child records is counted
+     * here as well, it is stopped when this context is, and cancelling it stops only its own search. Children do not
+     * report progress.
+     *
+     * @return The new context
+     */
+    public SearchContext child() {
+        return new SearchContext(this, false);
+    }
+
+    /**
+     * Creates a child context like {@link #child()} that also counts the nodes of its own search apart. Its node
+     * budget applies to that count alone, so other searches sharing the counters do not use it up.
+     *
+     * @return The new context
+     */
+    public SearchContext childWithOwnNodeCount() {
+        return new SearchContext(this, true);
+    }
+
+    /**
+     * Records that the search entered a new node.
+     */
+    public void node() {
+        nodes.increment();
+        for (SearchContext context = this; context != null; context = context.parent) {
+            if (context.ownNodes != null) {
+                context.ownNodes.increment();
+            }
+            if (context.limited && ++context.unchecked >= context.checkInterval) {
+                context.unchecked = 0;
+                context.checkLimits();
+            }
+        }
+    }
+
+    private void checkLimits() {
+        if (nodeBudget > 0 && getOwnNodes() >= nodeBudget) {
+            stop(SearchStatus.BUDGET_EXCEEDED);
+        } else if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+            stop(SearchStatus.TIMED_OUT);
+        }
+    }
+
+    /**
+     * Gives the search a deadline from now on. Set before the search starts.
+     *
+     * @param timeout The time the search may take
+     * @param unit    The unit of the time
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        // 0 means no deadline, so move a deadline that happens to land on it by a nanosecond
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        this.deadline = end == 0 ? 1 : end;
+        this.limited = true;
+    }
+
+    /**
+     * Limits the number of nodes the search may visit, counting those of every child and parent sharing the
+     * counters unless this context {@link #childWithOwnNodeCount() counts its own}. Set before the search starts.
+     *
+     * @param nodes The most nodes to visit, 0 for no limit
+     */
+    public void setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+        this.limited = deadline != 0 || nodes > 0;
+        // Small budgets are checked more often so they are not overrun many times over
+        long remaining = nodes - getOwnNodes();
+        this.checkInterval = nodes > 0 ? (int) Math.max(1, Math.min(CHECK_INTERVAL, remaining)) : CHECK_INTERVAL;
+    }
+
+    /**
+     * Stops the search as soon as every thread running it reaches its next node. Can be called from any thread.
+     */
+    public void cancel() {
+        stop(SearchStatus.CANCELLED);
+    }
+
+    private synchronized void stop(SearchStatus reason) {
+        // The first reason sticks
+        if (stopReason == null) {
+            stopReason = reason;
+        }
+    }
+
+    /**
+     * Determines if the search has to give up, which solvers check at every node.
+     *
+     * @return True if the search timed out, ran out of nodes or was cancelled otherwise False
+     */
+    public boolean isStopped() {
+        return getStopReason() != null;
+    }
+
+    /**
+     * @return Why the search was stopped, or null if it was not
+     */
+    public SearchStatus getStopReason() {
+        for (SearchContext context = this; context != null; context = context.parent) {
+            SearchStatus reason = context.stopReason;
+            if (reason != null) {
+                return reason;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes the threads working on the search add up the CPU time they spend on it, including those of children
+     * created from now on. Set before the search starts.
+     *
+     * @return True if the JVM measures the CPU time of threads, otherwise nothing is measured
+     */
+    public boolean measureCpuTime() {
+        if (!isThreadCpuTimeSupported()) {
+            return false;
+        }
+        if (cpuTime == null) {
+            cpuTime = new LongAdder();
+        }
+        return true;
+    }
+
+    /**
+     * Marks that the current thread starts working on the search, typically at the start of a task of a parallel
+     * solver. Cheap when the CPU time is not measured or the thread is already working on the same search. Work on
+     * another search the thread was measuring, such as a task of a different solve it ran while joining, is paused
+     * until {@link #endWork(boolean)} so no time is counted twice.
+     *
+     * @return The value to hand to {@link #endWork(boolean)} once the thread is done
+     */
+    public boolean beginWork() {
+        if (cpuTime == null) {
+            return false;
+        }
+        Work work = WORK.get();
+        if (work.cpuTime == cpuTime) {
+            return false;
+        }
+        long now = THREADS.getCurrentThreadCpuTime();
+        if (work.cpuTime != null) {
+            work.cpuTime.add(now - work.since);
+            work.paused.push(work.cpuTime);
+        }
+        work.cpuTime = cpuTime;
+        work.since = now;
+        return true;
+    }
+
+    /**
+     * Marks that the current thread is done working on the search and adds the CPU time it spent since
+     * {@link #beginWork()}.
+     *
+     * @param began The value returned by {@link #beginWork()}
+     */
+    public void endWork(boolean began) {
+        if (began) {
+            Work work = WORK.get();
+            long now = THREADS.getCurrentThreadCpuTime();
+            work.cpuTime.add(now - work.since);
+            work.cpuTime = work.paused.poll();
+            work.since = now;
+        }
+    }
+
+    /**
+     * The search the current thread measures its CPU time for and the ones it paused to work on it.
+     */
+    private static class Work {
+
+        private final Deque<LongAdder> paused = new ArrayDeque<>();
+        private LongAdder cpuTime;
+        private long since;
+    }
+
+    /**
+     * @return True if the JVM can measure the CPU time of the current thread
+     */
+    public static boolean isThreadCpuTimeSupported() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Records that a placement had to be undone.
+     */
+    public void backtrack() {
+        backtracks.increment();
+    }
+
+    /**
+     * Records that the search tried one of several candidates.
+     *
+     * @param depth The depth of the search node making the guess, 0 for the root
+     */
+    public void guess(int depth) {
+        guesses.increment();
+        maxDepth.accumulate(depth + 1);
+    }
+
+    /**
+     * Records placements and eliminations found by propagation.
+     *
+     * @param count The number of deductions
+     */
+    public void deduced(int count) {
+        deductions.add(count);
+    }
+
+    /**
+     * Records that tasks were forked for other threads to steal.
+     *
+     * @param count The number of tasks forked
+     */
+    public void forked(int count) {
+        forked.add(count);
+    }
+
+    /**
+     * Records that a forked task was run by a thread other than the one that forked it.
+     */
+    public void stolen() {
+        stolen.increment();
+    }
+
+    /**
+     * Determines if the current search node should report its board through {@link #progress(Board)}. Cheap enough
+     * to be called at every node.
+     *
+     * @return True if a listener wants a snapshot otherwise False
+     */
+    public boolean isProgressWanted() {
+        return listener != null && listener.isSnapshotWanted();
+    }
+
+    /**
+     * Reports the board of the current search node to the listener.
+     *
+     * @param board The board as it currently stands
+     */
+    public void progress(Board board) {
+        if (listener != null) {
+            listener.snapshot(board);
+        }
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return The nodes the node budget applies to: those of this context and its children if it counts its own,
+     * otherwise the same as {@link #getNodes()}
+     */
+    public long getOwnNodes() {
+        return ownNodes != null ? ownNodes.sum() : nodes.sum();
+    }
+
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    public long getGuesses() {
+        return guesses.sum();
+    }
+
+    public long getDeductions() {
+        return deductions.sum();
+    }
+
+    public long getForked() {
+        return forked.sum();
+    }
+
+    public long getStolen() {
+        return stolen.sum();
+    }
+
+    /**
+     * @return The CPU time in nanoseconds the threads working on the search spent on it, 0 unless it is measured
+     */
+    public long getCpuTime() {
+        return cpuTime != null ? cpuTime.sum() : 0;
+    }
+
+    /**
+     * @return The depth of the deepest guess, counting the placements on its path from the root
+     */
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public String toString() {
+        return "nodes=" + getNodes() + ", backtracks=" + getBacktracks() + ", guesses=" + getGuesses()
+                + ", deductions=" + getDeductions() + ", maxDepth=" + getMaxDepth() + ", forked=" + getForked()
+                + ", stolen=" + getStolen() + (isStopped() ? ", stopped=" + getStopReason() : "");
+    }
+}
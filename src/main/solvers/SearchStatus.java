@@ -0,0 +1,35 @@
+package main.solvers;
+
+/**
+ * How a solve ended. A search that is stopped early reports why, together with the statistics it gathered up to
+ * that point.
+ *
+ * @author Matthew Lillie
+ */
+public enum SearchStatus {
+
+    /**
+     * A solution was found.
+     */
+    SOLVED,
+
+    /**
+     * The whole search space was searched without finding a solution.
+     */
+    UNSOLVABLE,
+
+    /**
+     * The search was stopped when its deadline passed.
+     */
+    TIMED_OUT,
+
+    /**
+     * The search was stopped after visiting as many nodes as it was allowed.
+     */
+    BUDGET_EXCEEDED,
+
+    /**
+     * The search was stopped on request.
+     */
+    CANCELLED
+}
@@ -1,10 +1,7 @@
 package main.solvers;
 
-import main.Puzzle;
-import main.PuzzleHelpers;
-
-import javax.swing.*;
-import java.awt.*;
+import main.board.Board;
+import main.board.CandidateState;
 
 /**
  * Solves a sudoku puzzle using a standard sequential backtracking algorithm.
@@ -13,43 +10,97 @@ import java.awt.*;
  */
 public class SequentialBacktrackingSolver implements Solver {
 
+    /**
+     * Heuristic used to pick the cell to branch on.
+     */
+    private final BranchHeuristic heuristic;
+
+    /**
+     * Propagator applied at every search node.
+     */
+    private final Propagator propagator;
+
+    /**
+     * Construct a new solver that propagates singles and branches on the most constrained cell first.
+     */
+    public SequentialBacktrackingSolver() {
+        this(new MinimumRemainingValuesHeuristic());
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic.
+     *
+     * @param heuristic The heuristic used to pick the cell to branch on
+     */
+    public SequentialBacktrackingSolver(BranchHeuristic heuristic) {
+        this(heuristic, new Propagator(PropagationLevel.SINGLES));
+    }
+
+    /**
+     * Construct a new solver using a given branching heuristic and propagator.
+     *
+     * @param heuristic  The heuristic used to pick the cell to branch on
+     * @param propagator The propagator applied at every search node
+     */
+    public SequentialBacktrackingSolver(BranchHeuristic heuristic, Propagator propagator) {
+        this.heuristic = heuristic;
+        this.propagator = propagator;
+    }
+
     @Override
-    public boolean solve(Puzzle puzzle) {
-        if (backtracking(puzzle)) {
-            System.out.println("Successfully found solution using sequential backtracking!");
+    public boolean solve(Board board, SearchContext context) {
+        CandidateState state = new CandidateState(board);
+        if (state.isConsistent() && backtracking(state, 0, context)) {
             return true;
-        } else {
-            System.out.println("Failed to find a solution using sequential backtracking!");
-            return false;
         }
+        // Leave the board as it was given
+        state.undo(0);
+        return false;
+    }
+
+    /**
+     * Searches from a constraint state rather than a board, keeping any candidates already eliminated from it beyond
+     * what its digits imply, such as by human solving techniques.
+     *
+     * @param state   The state to solve in place, left at the solution if one is found
+     * @param context The context collecting statistics about the search
+     * @return True if a solution was found otherwise False
+     */
+    public boolean solve(CandidateState state, SearchContext context) {
+        return state.isConsistent() && backtracking(state, 0, context);
     }
 
-    private boolean backtracking(Puzzle puzzle) {
+    private boolean backtracking(CandidateState state, int depth, SearchContext context) {
+        context.node();
+        if (context.isStopped() || !propagator.propagate(state, context)) {
+            return false;
+        }
+        if (context.isProgressWanted()) {
+            context.progress(state.getBoard());
+        }
         // If every square is filled, then we finished!
-        if (PuzzleHelpers.isFinished(puzzle.getCurrentBoard())) {
+        if (state.isFinished()) {
             return true;
         }
 
-        for (int x = 0; x < Puzzle.NUMBER_OF_SQUARES; x++) {
-            for (int y = 0; y < Puzzle.NUMBER_OF_SQUARES; y++) {
-                if (puzzle.getCurrentBoard()[x][y].getValue() == 0) {
-                    for (int n = 1; n <= Puzzle.NUMBER_OF_SQUARES; n++) {
-                        if (PuzzleHelpers.checkValid(puzzle.getCurrentBoard(), x, y, n)) {
-                            puzzle.getCurrentBoard()[x][y].setValue(n);
-                            puzzle.getCurrentBoard()[x][y].setColor(Color.RED);
-                            SwingUtilities.invokeLater(puzzle::repaint);
-                            if (backtracking(puzzle)) {
-                                return true;
-                            } else {
-                                puzzle.getCurrentBoard()[x][y].setValue(0);
-                                puzzle.getCurrentBoard()[x][y].setColor(Color.BLACK);
-                            }
-                        }
-                    }
-                    return false;
-                }
+        int index = heuristic.selectCell(state);
+        long candidates = state.candidates(index);
+        boolean guessing = Long.bitCount(candidates) > 1;
+        while (candidates != 0) {
+            long bit = heuristic.selectValue(state, index, candidates);
+            candidates ^= bit;
+            if (guessing) {
+                context.guess(depth);
+            }
+            int mark = state.mark();
+            state.place(index, CandidateState.digit(bit));
+            if (backtracking(state, depth + 1, context)) {
+                return true;
+            } else {
+                state.undo(mark);
+                context.backtrack();
             }
         }
-        return true;
+        return false;
     }
 }
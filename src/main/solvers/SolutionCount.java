@@ -0,0 +1,96 @@
+package main.solvers;
+
+import main.board.Board;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of counting the solutions of a board up to a limit, together with the first few solutions found. A count
+ * whose search was stopped by its context is only a lower bound.
+ *
+ * @author Matthew Lillie
+ */
+public class SolutionCount {
+
+    private final long count;
+    private final long limit;
+    private final List<Board> solutions;
+    private final SearchStatus stopReason;
+
+    /**
+     * Construct a new result of a count that ran to the end or to the limit.
+     *
+     * @param count     The number of solutions found, at most the limit
+     * @param limit     The limit the count was bounded by
+     * @param solutions The solutions that were kept
+     */
+    public SolutionCount(long count, long limit, List<Board> solutions) {
+        this(count, limit, solutions, null);
+    }
+
+    /**
+     * Construct a new result.
+     *
+     * @param count      The number of solutions found, at most the limit
+     * @param limit      The limit the count was bounded by
+     * @param solutions  The solutions that were kept
+     * @param stopReason Why the search was stopped before it could finish, or null if it was not
+     */
+    public SolutionCount(long count, long limit, List<Board> solutions, SearchStatus stopReason) {
+        this.count = count;
+        this.limit = limit;
+        this.solutions = Collections.unmodifiableList(solutions);
+        this.stopReason = stopReason;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return True if counting stopped at the limit, meaning the board may have more solutions
+     */
+    public boolean isLimitReached() {
+        return count >= limit;
+    }
+
+    /**
+     * @return True if the search was stopped before it could finish, meaning the board may have more solutions
+     */
+    public boolean isStopped() {
+        return stopReason != null;
+    }
+
+    /**
+     * @return Why the search was stopped, or null if it was not
+     */
+    public SearchStatus getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * @return True if the board has exactly one solution. Only conclusive when the limit was at least 2 and the
+     * search was not stopped.
+     */
+    public boolean isUnique() {
+        return count == 1 && limit > 1 && stopReason == null;
+    }
+
+    /**
+     * @return The solutions that were kept, in the order they were found
+     */
+    public List<Board> getSolutions() {
+        return solutions;
+    }
+
+    @Override
+    public String toString() {
+        return (isLimitReached() || isStopped() ? "at least " : "") + count + " solution(s)"
+                + (isStopped() ? " (" + stopReason.toString().toLowerCase().replace('_', ' ') + ")" : "");
+    }
+}
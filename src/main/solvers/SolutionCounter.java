@@ -0,0 +1,56 @@
+package main.solvers;
+
+import main.board.Board;
+
+/**
+ * A solver that can count the solutions of a board without enumerating all of them, stopping as soon as a limit is
+ * reached.
+ *
+ * @author Matthew Lillie
+ */
+public interface SolutionCounter {
+
+    /**
+     * Counts the solutions of a board, stopping as soon as a limit is reached. The board itself is left untouched.
+     *
+     * @param board   The board to count the solutions of
+     * @param limit   The number of solutions after which to stop
+     * @param keep    The number of solutions to keep and return
+     * @param context The context collecting statistics about the search
+     * @return The bounded count and the kept solutions
+     */
+    public SolutionCount countSolutions(Board board, long limit, int keep, SearchContext context);
+
+    /**
+     * Counts the solutions of a board, stopping as soon as a limit is reached.
+     *
+     * @param board The board to count the solutions of
+     * @param limit The number of solutions after which to stop
+     * @return The bounded count
+     */
+    public default SolutionCount countSolutions(Board board, long limit) {
+        return countSolutions(board, limit, 0, new SearchContext());
+    }
+
+    /**
+     * Determines if a board has exactly one solution, stopping as soon as a second one is found.
+     *
+     * @param board The board to check
+     * @return True if the board has a unique solution otherwise False
+     */
+    public default boolean isUnique(Board board) {
+        return countSolutions(board, 2).isUnique();
+    }
+
+    /**
+     * Counts the solutions of a board up to 2, which decides whether it is unique unless the context stops the
+     * search first.
+     *
+     * @param board   The board to check
+     * @param context The context bounding the search
+     * @return The bounded count, unique if {@link SolutionCount#isUnique()}, undecided if it was stopped
+     */
+    public default SolutionCount checkUnique(Board board, SearchContext context) {
+        return countSolutions(board, 2, 0, context);
+    }
+}
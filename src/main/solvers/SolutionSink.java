@@ -0,0 +1,21 @@
+package main.solvers;
+
+import main.board.Board;
+
+/**
+ * Receives the solutions of a board one at a time while they are being enumerated, instead of having them collected
+ * into a list.
+ *
+ * @author Matthew Lillie
+ */
+public interface SolutionSink {
+
+    /**
+     * Receives a solution. The board is still being searched once this returns, so it has to be copied to be kept.
+     * Solvers that search in parallel call this from several threads at once.
+     *
+     * @param solution The solution
+     * @return True to keep enumerating otherwise False to stop as soon as possible
+     */
+    public boolean accept(Board solution);
+}
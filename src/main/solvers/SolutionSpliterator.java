@@ -0,0 +1,214 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the solutions of a board lazily, one {@link #tryAdvance} at a time. The search runs on a single state
+ * with an explicit stack holding the branching cell, the candidates left to try and the trail mark of every level, so
+ * memory only grows with the depth of the search and never with the number of solutions.
+ * <p>
+ * Splitting hands out half of the untried candidates of the shallowest level that still has some. The new
+ * spliterator rebuilds the state of that level by replaying the digits chosen on the way down from its origin, which
+ * is deterministic since propagation is. A spliterator left with a single untried candidate and nothing else to search
+ * goes down into it instead, until it reaches a cell with several. The subtrees handed out come after the current one
+ * in search order, so parallel streams see the solutions in no particular order.
+ *
+ * @author Matthew Lillie
+ */
+class SolutionSpliterator implements Spliterator<Board> {
+
+    private final BranchHeuristic heuristic;
+    private final Propagator propagator;
+    private final SearchContext context;
+    // Copy of the state every level is replayed from when splitting
+    private final CandidateState origin;
+    private final CandidateState state;
+    // Branching cell, untried candidates, trail mark and digit being searched of every level
+    private final int[] cells;
+    private final long[] remaining;
+    private final int[] marks;
+    private final int[] chosen;
+    private final boolean[] guessing;
+    private int depth;
+    // Whether the state is a search node that still has to be propagated and branched on
+    private boolean fresh;
+    // Whether the state is the solved root, expanded by a split before it could be handed to an action
+    private boolean solved;
+    // Size reported to the stream, which is not known and halves with every split so streams stop splitting
+    private long estimate = Long.MAX_VALUE;
+
+    /**
+     * Creates a spliterator over every solution of a board.
+     *
+     * @param board      The board to solve, left untouched
+     * @param heuristic  The heuristic used to pick the cell to branch on
+     * @param propagator The propagator applied at every search node
+     * @param context    The context collecting statistics about the search, shared by every split
+     */
+    SolutionSpliterator(Board board, BranchHeuristic heuristic, Propagator propagator, SearchContext context) {
+        this(new CandidateState(board.copy()), heuristic, propagator, context);
+        this.fresh = state.isConsistent();
+    }
+
+    private SolutionSpliterator(CandidateState origin, BranchHeuristic heuristic, Propagator propagator,
+                                SearchContext context) {
+        this.heuristic = heuristic;
+        this.propagator = propagator;
+        this.context = context;
+        this.origin = origin;
+        this.state = origin.copy();
+        int cells = origin.getGeometry().getCells();
+        this.cells = new int[cells];
+        this.remaining = new long[cells];
+        this.marks = new int[cells];
+        this.chosen = new int[cells];
+        this.guessing = new boolean[cells];
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Board> action) {
+        while (true) {
+            // A stopped search ends the stream
+            if (context.isStopped()) {
+                depth = 0;
+                fresh = false;
+                solved = false;
+                return false;
+            }
+            if (fresh) {
+                fresh = false;
+                solved = expand();
+            }
+            if (solved) {
+                solved = false;
+                action.accept(state.getBoard().copy());
+                return true;
+            }
+
+            // Move on to the next untried candidate of the deepest level that has one
+            if (depth == 0) {
+                return false;
+            }
+            int level = depth - 1;
+            state.undo(marks[level]);
+            if (remaining[level] == 0) {
+                depth--;
+                continue;
+            }
+            descend(level);
+            fresh = true;
+        }
+    }
+
+    /**
+     * Places the next untried candidate of a level, whose trail mark the state must be at.
+     */
+    private void descend(int level) {
+        long bit = remaining[level] & -remaining[level];
+        remaining[level] ^= bit;
+        if (guessing[level]) {
+            context.guess(level);
+        }
+        chosen[level] = CandidateState.digit(bit);
+        state.place(cells[level], chosen[level]);
+    }
+
+    /**
+     * Propagates the current search node and, unless that solves it, adds a level branching on the cell the heuristic
+     * picks.
+     *
+     * @return True if the node is a solution otherwise False
+     */
+    private boolean expand() {
+        context.node();
+        if (!propagator.propagate(state, context)) {
+            context.backtrack();
+            return false;
+        }
+        if (context.isProgressWanted()) {
+            context.progress(state.getBoard());
+        }
+        if (state.isFinished()) {
+            return true;
+        }
+        int index = heuristic.selectCell(state);
+        long candidates = state.candidates(index);
+        if (candidates == 0) {
+            context.backtrack();
+        }
+        cells[depth] = index;
+        remaining[depth] = candidates;
+        marks[depth] = state.mark();
+        guessing[depth] = Long.bitCount(candidates) > 1;
+        depth++;
+        return false;
+    }
+
+    @Override
+    public Spliterator<Board> trySplit() {
+        // Streams split before the first advance, so branch on the root first to have candidates to hand out
+        if (fresh && depth == 0) {
+            fresh = false;
+            solved = expand();
+        }
+        int level;
+        while (true) {
+            level = 0;
+            while (level < depth && remaining[level] == 0) {
+                level++;
+            }
+            if (level == depth || solved) {
+                return null;
+            }
+            // A last candidate is only handed out while a subtree below it is left to search here
+            if (Long.bitCount(remaining[level]) > 1 || fresh || level < depth - 1) {
+                break;
+            }
+            // Otherwise search into it, so the level below has candidates to split
+            state.undo(marks[level]);
+            descend(level);
+            solved = expand();
+        }
+
+        // Rebuild the state of the level by replaying the digits chosen above it
+        CandidateState replayed = origin.copy();
+        propagator.propagate(replayed);
+        for (int i = 0; i < level; i++) {
+            replayed.place(cells[i], chosen[i]);
+            propagator.propagate(replayed);
+        }
+
+        // Hand out the upper half of the untried candidates, all of them if there is only one
+        long candidates = remaining[level];
+        long kept = 0;
+        for (int count = Long.bitCount(candidates) / 2; count > 0; count--) {
+            kept |= (candidates ^ kept) & -(candidates ^ kept);
+        }
+        remaining[level] = kept;
+        estimate >>>= 1;
+
+        SolutionSpliterator split = new SolutionSpliterator(replayed, heuristic, propagator, context);
+        split.cells[0] = cells[level];
+        split.remaining[0] = candidates ^ kept;
+        split.marks[0] = split.state.mark();
+        split.guessing[0] = guessing[level];
+        split.depth = 1;
+        split.estimate = estimate;
+        context.forked(1);
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return depth == 0 && !fresh && !solved ? 0 : estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,140 @@
+package main.solvers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Outcome of a single solve together with the statistics of its search, taken from the {@link SearchContext} it ran
+ * with and the time it took. The statistics of a search that was stopped early cover the work done until then.
+ *
+ * @author Matthew Lillie
+ */
+public class SolveResult {
+
+    private final boolean solved;
+    private final SearchStatus status;
+    private final long nodes;
+    private final long backtracks;
+    private final long guesses;
+    private final long deductions;
+    private final long maxDepth;
+    private final long forkedTasks;
+    private final long stolenTasks;
+    private final long wallNanos;
+    private final long cpuNanos;
+
+    /**
+     * Construct a new result from the counters of a finished search.
+     *
+     * @param solved    Whether a solution was found
+     * @param context   The context the search ran with
+     * @param wallNanos The elapsed time of the solve
+     * @param cpuNanos  The CPU time used by the solve
+     */
+    public SolveResult(boolean solved, SearchContext context, long wallNanos, long cpuNanos) {
+        this.solved = solved;
+        if (solved) {
+            this.status = SearchStatus.SOLVED;
+        } else {
+            this.status = context.getStopReason() != null ? context.getStopReason() : SearchStatus.UNSOLVABLE;
+        }
+        this.nodes = context.getNodes();
+        this.backtracks = context.getBacktracks();
+        this.guesses = context.getGuesses();
+        this.deductions = context.getDeductions();
+        this.maxDepth = context.getMaxDepth();
+        this.forkedTasks = context.getForked();
+        this.stolenTasks = context.getStolen();
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    /**
+     * Reads the CPU time the whole process used so far, the fallback for JVMs that cannot measure the CPU time of
+     * single threads. It is only exact for a solve while no other solve runs.
+     *
+     * @return The CPU time in nanoseconds, or 0 if it cannot be measured
+     */
+    public static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            long time = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            if (time >= 0) {
+                return time;
+            }
+        }
+        return 0;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return How the solve ended, telling a puzzle without a solution apart from a search that was stopped early
+     */
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return The number of candidates tried in cells that had more than one
+     */
+    public long getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * @return The number of placements and eliminations found by propagation
+     */
+    public long getDeductions() {
+        return deductions;
+    }
+
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getForkedTasks() {
+        return forkedTasks;
+    }
+
+    /**
+     * @return The number of forked tasks that ran on a thread other than the one that forked them
+     */
+    public long getStolenTasks() {
+        return stolenTasks;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    @Override
+    public String toString() {
+        String outcome;
+        if (status == SearchStatus.SOLVED) {
+            outcome = "Solved";
+        } else if (status == SearchStatus.UNSOLVABLE) {
+            outcome = "Unsolved";
+        } else {
+            outcome = "Stopped (" + status.name().toLowerCase().replace('_', ' ') + ")";
+        }
+        return outcome + " in " + String.format("%.3f", wallNanos / 1e6) + " ms (cpu "
+                + String.format("%.3f", cpuNanos / 1e6) + " ms, nodes=" + nodes + ", backtracks=" + backtracks
+                + ", guesses=" + guesses + ", deductions=" + deductions + ", maxDepth=" + maxDepth
+                + ", forked=" + forkedTasks + ", stolen=" + stolenTasks + ")";
+    }
+}
@@ -1,7 +1,95 @@
 package main.solvers;
 
 import main.Puzzle;
+import main.board.Board;
 
+import javax.swing.*;
+
+/**
+ * A strategy for solving a Sudoku puzzle. Solvers work on the headless {@link Board} so that they can run without a
+ * display; {@link #solve(Puzzle)} adapts the on-screen puzzle for the GUI.
+ *
+ * @author Matthew Lillie
+ */
 public interface Solver {
-    public boolean solve(Puzzle puzzle);
+
+    /**
+     * Attempts to solve the given board in place, recording the search effort in the given context.
+     *
+     * @param board   The board to solve
+     * @param context The context collecting statistics about the search
+     * @return True if a solution was found otherwise False
+     */
+    public boolean solve(Board board, SearchContext context);
+
+    /**
+     * Attempts to solve the given board in place.
+     *
+     * @param board The board to solve
+     * @return True if a solution was found otherwise False
+     */
+    public default boolean solve(Board board) {
+        return solve(board, new SearchContext());
+    }
+
+    /**
+     * Attempts to solve the given board in place and reports the statistics of the search along with the wall and CPU
+     * time it took. The CPU time is that of every thread that worked on the search. A JVM that cannot measure the CPU
+     * time of threads reports that of the whole process instead, which is only exact while a single solve runs at a
+     * time.
+     *
+     * @param board   The board to solve
+     * @param context The context collecting statistics about the search, normally a fresh one
+     * @return The result of the solve
+     */
+    public default SolveResult solveWithStats(Board board, SearchContext context) {
+        boolean perThread = context.measureCpuTime();
+        long cpuStart = perThread ? context.getCpuTime() : SolveResult.processCpuTime();
+        long start = System.nanoTime();
+        boolean work = context.beginWork();
+        boolean solved;
+        try {
+            solved = solve(board, context);
+        } finally {
+            context.endWork(work);
+        }
+        long wall = System.nanoTime() - start;
+        long cpu = (perThread ? context.getCpuTime() : SolveResult.processCpuTime()) - cpuStart;
+        return new SolveResult(solved, context, wall, cpu);
+    }
+
+    /**
+     * Attempts to solve the given board in place and reports the statistics of the search.
+     *
+     * @param board The board to solve
+     * @return The result of the solve
+     */
+    public default SolveResult solveWithStats(Board board) {
+        return solveWithStats(board, new SearchContext());
+    }
+
+    /**
+     * Solves a copy of the board behind the given puzzle and shows the result on the Swing thread once finished, so
+     * the displayed board is never changed while it is being painted.
+     *
+     * @param puzzle  The puzzle to solve
+     * @param context The context collecting statistics about the search
+     * @return True if a solution was found otherwise False
+     */
+    public default boolean solve(Puzzle puzzle, SearchContext context) {
+        Board board = puzzle.getBoard().copy();
+        boolean solved = solve(board, context);
+        SwingUtilities.invokeLater(() -> puzzle.showBoard(board));
+        return solved;
+    }
+
+    /**
+     * Solves the board behind the given puzzle and repaints it once finished.
+     *
+     * @param puzzle The puzzle to solve
+     * @return True if a solution was found otherwise False
+     */
+    public default boolean solve(Puzzle puzzle) {
+        return solve(puzzle, new SearchContext());
+    }
 }
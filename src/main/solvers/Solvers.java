@@ -0,0 +1,55 @@
+package main.solvers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the available solvers by name, used by the command line tools and the benchmarks so that every solver
+ * can be selected the same way. New solvers only need to be added here.
+ *
+ * @author Matthew Lillie
+ */
+public final class Solvers {
+
+    private static final Map<String, Supplier<Solver>> SOLVERS = new LinkedHashMap<>();
+
+    static {
+        SOLVERS.put("sequential", SequentialBacktrackingSolver::new);
+        SOLVERS.put("parallel", ParallelBacktrackingSolver::new);
+        SOLVERS.put("forkjoin", ForkPoolAllSolver::new);
+        SOLVERS.put("dlx", DancingLinksSolver::new);
+        SOLVERS.put("iterative", IterativeBacktrackingSolver::new);
+        SOLVERS.put("lanes", LaneBatchSolver::new);
+        SOLVERS.put("portfolio", PortfolioSolver::new);
+        SOLVERS.put("restarts", RestartingSolver::new);
+        SOLVERS.put("parallel-restarts", () -> RestartingSolver.parallel(RestartingSolver.DEFAULT_SEED));
+    }
+
+    private Solvers() {
+    }
+
+    /**
+     * Creates a new solver by its name.
+     *
+     * @param name The name of the solver
+     * @return The solver
+     * @throws IllegalArgumentException If there is no solver with that name
+     */
+    public static Solver create(String name) {
+        Supplier<Solver> supplier = SOLVERS.get(name);
+        if (supplier == null) {
+            throw new IllegalArgumentException("Unknown solver: " + name + ", expected one of " + names());
+        }
+        return supplier.get();
+    }
+
+    /**
+     * @return The names of every registered solver in registration order
+     */
+    public static Set<String> names() {
+        return Collections.unmodifiableSet(SOLVERS.keySet());
+    }
+}
@@ -0,0 +1,33 @@
+package main.board;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Matthew Lillie
+ */
+public class BoardTest {
+
+    @Test
+    public void largestBoardRoundTrips() {
+        Geometry geometry = Geometry.ofSize(Board.MAX_LINE_SIZE);
+        Board board = new Board(geometry);
+        // Every symbol once in the first row and once in the first column
+        for (int i = 0; i < geometry.getSize(); i++) {
+            board.set(geometry.index(i, 0), i + 1);
+            board.set(geometry.index(0, (i + 1) % geometry.getSize()), i + 1);
+        }
+        String line = board.toString();
+        assertEquals(board, Board.parse(line));
+        assertEquals(line, Board.parse(line.toLowerCase()).toString());
+    }
+
+    @Test
+    public void largerBoardsHaveNoLineFormat() {
+        Geometry geometry = Geometry.ofSize(Board.MAX_LINE_SIZE + 1);
+        assertThrows(IllegalArgumentException.class, () -> Board.parse(new Board(geometry).toString(), geometry));
+        assertThrows(IllegalArgumentException.class, () -> Board.cellCharacter(Board.MAX_LINE_SIZE + 1));
+    }
+}
@@ -0,0 +1,68 @@
+package main.solvers;
+
+import main.board.Board;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Matthew Lillie
+ */
+public class ForkPoolAllSolverTest {
+
+    // Constants
+    private static final String PUZZLE =
+            "............86..4.1..4.3.......1.2..4.....7...76.....1....8..1....12..7.39....8..";
+    private static final int SOLUTIONS = 15285;
+    private static final int THREADS = 4;
+
+    @Test
+    public void countsEverySolution() {
+        Board board = Board.parse(PUZZLE);
+        SolutionCount count = new ForkPoolAllSolver().countSolutions(board, Long.MAX_VALUE, 0, new SearchContext());
+        assertEquals(SOLUTIONS, count.getCount());
+        assertEquals(count.getCount(), new DancingLinksSolver().countSolutions(board, Long.MAX_VALUE, 0,
+                new SearchContext()).getCount());
+    }
+
+    @Test
+    public void countStopsAtTheLimit() {
+        SolutionCount count = new ForkPoolAllSolver().countSolutions(Board.parse(PUZZLE), 100, 5,
+                new SearchContext());
+        assertEquals(100, count.getCount());
+        assertEquals(5, count.getSolutions().size());
+        for (Board solution : count.getSolutions()) {
+            assertEquals(0, solution.countEmpty());
+        }
+    }
+
+    @Test
+    public void parallelStreamFindsTheSameSolutionsOnSeveralThreads() throws Exception {
+        ForkPoolAllSolver solver = new ForkPoolAllSolver();
+        Board board = Board.parse(PUZZLE);
+        Set<Board> sequential = solver.solutions(board).collect(Collectors.toSet());
+
+        SearchContext context = new SearchContext();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        Set<Board> parallel;
+        try {
+            parallel = pool.submit(() -> solver.solutions(board, context).parallel()
+                    .peek(solution -> threads.add(Thread.currentThread().getName()))
+                    .collect(Collectors.toSet())).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(SOLUTIONS, sequential.size());
+        assertEquals(sequential, parallel);
+        assertTrue(context.getForked() > 0, "no subtree was split off");
+        assertTrue(threads.size() > 1, "ran on " + threads);
+    }
+}
@@ -0,0 +1,70 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Matthew Lillie
+ */
+public class ParallelBacktrackingSolverTest {
+
+    // Constants
+    // No solution, so every candidate of every split cell is searched
+    private static final String UNSOLVABLE =
+            ".....1..6.2.86..4.1..4.3.......1.2..4..6..7...76.....1....8..1....12..7.39....8..";
+    private static final int SEEDS = 5;
+    // Without propagation and in scan order, split cells have many candidates whose order shows
+    private static final Propagator NO_PROPAGATION = new Propagator(PropagationLevel.NONE);
+
+    @Test
+    public void singleThreadSearchesInHeuristicOrder() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            for (long seed = 0; seed < SEEDS; seed++) {
+                RecordingHeuristic sequential = new RecordingHeuristic(seed);
+                RecordingHeuristic parallel = new RecordingHeuristic(seed);
+                assertFalse(new SequentialBacktrackingSolver(sequential, NO_PROPAGATION)
+                        .solve(Board.parse(UNSOLVABLE), new SearchContext()));
+                assertFalse(new ParallelBacktrackingSolver(pool, parallel, NO_PROPAGATION,
+                        ParallelBacktrackingSolver.DEFAULT_SPLIT_DEPTH).solve(Board.parse(UNSOLVABLE),
+                        new SearchContext()));
+                assertTrue(sequential.visited.equals(parallel.visited), "seed " + seed + " searched in another order");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Branches in scan order on digits shuffled by a seed, recording the board of every node it is asked about.
+     */
+    private static class RecordingHeuristic implements BranchHeuristic {
+
+        private final BranchHeuristic cells = new ScanOrderHeuristic();
+        private final BranchHeuristic values;
+        private final List<String> visited = new ArrayList<>();
+
+        RecordingHeuristic(long seed) {
+            this.values = new RandomizedHeuristic(seed);
+        }
+
+        @Override
+        public int selectCell(CandidateState state) {
+            visited.add(state.getBoard().toString());
+            return cells.selectCell(state);
+        }
+
+        @Override
+        public long selectValue(CandidateState state, int index, long candidates) {
+            return values.selectValue(state, index, candidates);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package main.solvers;
+
+import main.board.Board;
+import main.board.CandidateState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Matthew Lillie
+ */
+public class RestartingSolverTest {
+
+    // Constants
+    private static final String PUZZLE =
+            ".....1..6.2.86..4.1..4.3.......1.2..4.....7...76.....1....8..1....12..7.39....8..";
+    private static final long SEED = 7;
+    private static final int UNIT = SearchContext.CHECK_INTERVAL;
+    private static final int SIBLING_NODES = 3;
+    // Without propagation every placement is a node, so the puzzle takes several runs
+    private static final Propagator NO_PROPAGATION = new Propagator(PropagationLevel.NONE);
+
+    @Test
+    public void lubySequence() {
+        long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], RestartingSolver.luby(i + 1), "term " + (i + 1));
+        }
+    }
+
+    @Test
+    public void sameSeedRepeatsTheSearch() {
+        SearchContext first = new SearchContext();
+        SearchContext second = new SearchContext();
+        Board a = Board.parse(PUZZLE);
+        Board b = Board.parse(PUZZLE);
+        assertTrue(newSolver().solve(a, first));
+        assertTrue(newSolver().solve(b, second));
+        assertEquals(a, b);
+        assertEquals(first.getNodes(), second.getNodes());
+    }
+
+    @Test
+    public void busySiblingDoesNotUseUpTheBudget() {
+        SearchContext alone = new SearchContext();
+        Board expected = Board.parse(PUZZLE);
+        assertTrue(newSolver().solve(expected, alone));
+        assertTrue(alone.getNodes() > UNIT, "the puzzle should need restarts");
+
+        // A sibling search sharing the counters visits nodes while every run branches
+        SearchContext parent = new SearchContext();
+        SearchContext sibling = parent.childWithOwnNodeCount();
+        Solver restarts = new RestartingSolver(heuristic -> new SequentialBacktrackingSolver(new BranchHeuristic() {
+            @Override
+            public int selectCell(CandidateState state) {
+                for (int i = 0; i < SIBLING_NODES; i++) {
+                    sibling.node();
+                }
+                return heuristic.selectCell(state);
+            }
+
+            @Override
+            public long selectValue(CandidateState state, int index, long candidates) {
+                return heuristic.selectValue(state, index, candidates);
+            }
+        }, NO_PROPAGATION), SEED, UNIT);
+        Board board = Board.parse(PUZZLE);
+        assertTrue(restarts.solve(board, parent.child()));
+
+        assertEquals(expected, board);
+        assertEquals(alone.getGuesses(), parent.getGuesses());
+        assertEquals(alone.getNodes(), parent.getNodes() - sibling.getOwnNodes());
+    }
+
+    private static Solver newSolver() {
+        return new RestartingSolver(heuristic -> new SequentialBacktrackingSolver(heuristic, NO_PROPAGATION), SEED,
+                UNIT);
+    }
+}